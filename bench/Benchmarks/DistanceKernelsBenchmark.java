@@ -0,0 +1,144 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Benchmarks;
+
+import Graph.DistanceKernels;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH comparison of the DistanceKernels batches against the per-pair loop
+ * they replace (Math.pow per dimension, one vector pair at a time).
+ *
+ * <p>Methods ending in Scalar run with {@code -Dgraph.kernels=scalar}; the
+ * others load the Vector API kernel. Dimension 3 is the mean-RGB features
+ * the graphs use today; 64 is a signature-sized vector. See the README for
+ * how to build and run it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+@State(Scope.Thread)
+public class DistanceKernelsBenchmark {
+    private static final String SCALAR = "-Dgraph.kernels=scalar";
+
+    @Param({ "3", "64" })
+    public int dimension;
+
+    @Param({ "4096" })
+    public int points;
+
+    @Param({ "16" })
+    public int queries;
+
+    private double[][] rows;        // Points one array each, as Vertex holds them
+    private double[] columns;       // Same points column-major
+    private float[] floatColumns;
+    private double[] queryRows;     // Queries row-major
+    private double[] query;
+    private float[] floatQuery;
+    private double[] out;
+    private float[] floatOut;
+    private double[] manyOut;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        rows = new double[points][dimension];
+        columns = new double[dimension * points];
+        floatColumns = new float[dimension * points];
+        for (int i = 0; i < points; i++) {
+            for (int d = 0; d < dimension; d++) {
+                rows[i][d] = random.nextDouble() * 255;
+                columns[d * points + i] = rows[i][d];
+                floatColumns[d * points + i] = (float) rows[i][d];
+            }
+        }
+        queryRows = new double[queries * dimension];
+        for (int i = 0; i < queryRows.length; i++) queryRows[i] = random.nextDouble() * 255;
+        query = new double[dimension];
+        floatQuery = new float[dimension];
+        System.arraycopy(queryRows, 0, query, 0, dimension);
+        for (int d = 0; d < dimension; d++) floatQuery[d] = (float) query[d];
+        out = new double[points];
+        floatOut = new float[points];
+        manyOut = new double[queries * points];
+    }
+
+    // --- Baseline ---
+
+    @Benchmark
+    public double[] oneToManyPowLoop() {
+        for (int i = 0; i < points; i++) out[i] = powLoop(query, 0, rows[i]);
+        return out;
+    }
+
+    @Benchmark
+    public double[] manyToManyPowLoop() {
+        for (int q = 0; q < queries; q++) {
+            for (int i = 0; i < points; i++) manyOut[q * points + i] = powLoop(queryRows, q * dimension, rows[i]);
+        }
+        return manyOut;
+    }
+
+    private double powLoop(double[] queries, int offset, double[] point) {
+        double sum = 0;
+        for (int d = 0; d < point.length; d++) sum += Math.pow(queries[offset + d] - point[d], 2);
+        return sum;
+    }
+
+    // --- Kernels ---
+
+    @Benchmark
+    public double[] oneToMany() {
+        DistanceKernels.squaredDistances(query, columns, points, 0, points, out);
+        return out;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { SCALAR })
+    public double[] oneToManyScalar() {
+        return oneToMany();
+    }
+
+    @Benchmark
+    public float[] oneToManyFloat() {
+        DistanceKernels.squaredDistances(floatQuery, floatColumns, points, 0, points, floatOut);
+        return floatOut;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { SCALAR })
+    public float[] oneToManyFloatScalar() {
+        return oneToManyFloat();
+    }
+
+    @Benchmark
+    public double[] manyToMany() {
+        DistanceKernels.squaredDistances(queryRows, dimension, columns, points, 0, points, manyOut);
+        return manyOut;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { SCALAR })
+    public double[] manyToManyScalar() {
+        return manyToMany();
+    }
+
+    @Benchmark
+    public double[] pairedNeighbors() {
+        DistanceKernels.pairedSquaredDistances(dimension, columns, points, 1, 0, points - 1, out);
+        return out;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { SCALAR })
+    public double[] pairedNeighborsScalar() {
+        return pairedNeighbors();
+    }
+}
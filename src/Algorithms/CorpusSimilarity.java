@@ -0,0 +1,490 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Graph.ImageGraph;
+import Graph.MappedGraph;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+
+/**
+ * All-pairs similarity job over an image corpus, for deduplication and for
+ * grouping recurring pothole patterns. Every pair is scored once with
+ * SimilarityDetector; each image keeps its topK most similar images, and
+ * pairs scoring at least the threshold are joined into clusters (connected
+ * components).
+ *
+ * <p>The job runs in three steps:
+ * <ol>
+ *   <li>Each image's region graph is written once to a MappedGraph file in
+ *       the work directory, so later steps map it instead of decoding the image.</li>
+ *   <li>The upper triangle of the pair matrix is scored in square blocks of
+ *       blockSize images. A row of blocks keeps its images' snapshots while the
+ *       columns go by, so each snapshot and feature index is reused for a whole
+ *       block of pairs. Pairs within a block are scored in parallel.</li>
+ *   <li>Progress (blocks done, neighbour lists, cluster links) is checkpointed
+ *       to the work directory as blocks finish, so a crashed or stopped job
+ *       resumes after the last checkpoint instead of starting over.</li>
+ * </ol>
+ *
+ * <p>SimilarityDetector scores a pair from the first graph's side, so the pair
+ * (i, j) with i &lt; j is scored with image i first and that score is used in
+ * both directions; this halves the work. Graphs are read back in region order,
+ * so scores equal SimilarityDetector's on the image's CompactGraph, and those
+ * on its ImageGraph up to rounding. Only the sparse top-k lists are kept,
+ * not the full matrix, which would not fit for tens of thousands of images.
+ * Unreadable images take part in no pairs and end up in no cluster.
+ */
+public class CorpusSimilarity {
+    /** Images per side of a block of the pair matrix */
+    public static final int DEFAULT_BLOCK_SIZE = 32;
+    /** Most similar images kept per image */
+    public static final int DEFAULT_TOP_K = 10;
+    /** Neighbours used by the k-NN comparison, as in Main */
+    public static final int DEFAULT_K = 5;
+    /** Default time between checkpoints */
+    public static final long DEFAULT_CHECKPOINT_MILLIS = 30_000;
+
+    private static final int MAGIC = 0x50474353;        // "PGCS"
+    private static final int FORMAT_VERSION = 1;
+    private static final String CHECKPOINT = "checkpoint.bin";
+    private static final String GRAPHS = "graphs";
+
+    private final List<File> images;
+    private final int regionSize;
+    private final int k;
+    private final int topK;
+    private final double threshold;
+    private final int blockSize;
+    private final File workDirectory;
+    private long checkpointMillis = DEFAULT_CHECKPOINT_MILLIS;
+
+    // Job state, saved in the checkpoint
+    private int nextBlock;              // Blocks before this one (in row order) are done
+    private int[] neighborCounts;       // Per image: entries used in its top-k heap
+    private int[] neighborIds;          // topK slots per image, a min-heap with the weakest at the root
+    private double[] neighborScores;
+    private int[] parent;               // Union-find over images; roots are the smallest index
+    private volatile int completedBlocks;
+
+    /**
+     * Creates a job with the default block size, top-k and k-NN settings.
+     * @param images Corpus; an image's position in the list is its index in the result
+     * @param regionSize Region size the graphs are built at
+     * @param threshold Lowest similarity score that links two images into a cluster
+     * @param workDirectory Directory for graph files and checkpoints (created if missing)
+     */
+    public CorpusSimilarity(List<File> images, int regionSize, double threshold, File workDirectory) {
+        this(images, regionSize, DEFAULT_K, DEFAULT_TOP_K, threshold, DEFAULT_BLOCK_SIZE, workDirectory);
+    }
+
+    /**
+     * @param images Corpus; an image's position in the list is its index in the result
+     * @param regionSize Region size the graphs are built at
+     * @param k Neighbours used by the k-NN comparison
+     * @param topK Most similar images kept per image
+     * @param threshold Lowest similarity score that links two images into a cluster
+     * @param blockSize Images per side of a block of the pair matrix
+     * @param workDirectory Directory for graph files and checkpoints (created if missing)
+     */
+    public CorpusSimilarity(List<File> images, int regionSize, int k, int topK, double threshold,
+                            int blockSize, File workDirectory) {
+        if (regionSize < 1 || k < 1 || topK < 1 || blockSize < 1) throw new IllegalArgumentException("Invalid job parameters");
+        this.images = new ArrayList<>(images);
+        this.regionSize = regionSize;
+        this.k = k;
+        this.topK = topK;
+        this.threshold = threshold;
+        this.blockSize = blockSize;
+        this.workDirectory = workDirectory;
+    }
+
+    /**
+     * Sets how often progress is saved; 0 saves after every block.
+     */
+    public void setCheckpointInterval(long millis) {
+        checkpointMillis = Math.max(0, millis);
+    }
+
+    // --- Running ---
+
+    /**
+     * Runs the job, resuming from the work directory's checkpoint if there is one.
+     * @param parallelism Number of images prepared, and pairs scored, at once
+     * @return Neighbour lists and clusters of the whole corpus
+     * @throws IOException if the work directory cannot be used, or holds a
+     *         checkpoint of a different job
+     */
+    public Result run(int parallelism) throws IOException {
+        File graphs = new File(workDirectory, GRAPHS);
+        if (!graphs.isDirectory() && !graphs.mkdirs()) throw new IOException("Cannot create work directory: " + graphs);
+        File checkpoint = new File(workDirectory, CHECKPOINT);
+        if (checkpoint.isFile()) loadCheckpoint(checkpoint);
+        else resetState();
+
+        int n = images.size();
+        int rows = (n + blockSize - 1) / blockSize;
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            boolean[] missing = new boolean[n];
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> missing[i] = !prepare(i))).join();
+
+            long lastSave = System.currentTimeMillis();
+            int block = 0;
+            for (int row = 0; row < rows; row++) {
+                FeatureSnapshot[] rowSnapshots = null;
+                for (int column = row; column < rows; column++, block++) {
+                    if (block < nextBlock) continue;
+                    if (rowSnapshots == null) rowSnapshots = snapshots(row, missing, pool);
+                    FeatureSnapshot[] columnSnapshots = column == row ? rowSnapshots : snapshots(column, missing, pool);
+                    scoreBlock(row, column, rowSnapshots, columnSnapshots, pool);
+
+                    nextBlock = block + 1;
+                    completedBlocks = nextBlock;
+                    if (System.currentTimeMillis() - lastSave >= checkpointMillis) {
+                        saveCheckpoint(checkpoint);
+                        lastSave = System.currentTimeMillis();
+                    }
+                }
+            }
+            saveCheckpoint(checkpoint);
+            int[] labels = new int[n];
+            for (int i = 0; i < n; i++) labels[i] = find(i);
+            return new Result(images, topK, missing, labels, neighborCounts.clone(), neighborIds.clone(),
+                              neighborScores.clone());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Writes an image's graph file unless one newer than the image exists.
+     * @return false if the image cannot be read
+     */
+    private boolean prepare(int i) {
+        File file = graphFile(i), image = images.get(i);
+        if (file.isFile() && file.lastModified() >= image.lastModified()) return true;
+        try {
+            writeGraph(i);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void writeGraph(int i) throws IOException {
+        BufferedImage image = ImageIO.read(images.get(i));
+        if (image == null) throw new IOException("Unsupported image: " + images.get(i));
+        MappedGraph.write(new ImageGraph(image, regionSize), graphFile(i));
+    }
+
+    /**
+     * Maps the graphs of one block of images, rewriting damaged graph files.
+     * Entries of unreadable images are null.
+     */
+    private FeatureSnapshot[] snapshots(int block, boolean[] missing, ForkJoinPool pool) {
+        int from = block * blockSize, to = Math.min(images.size(), from + blockSize);
+        FeatureSnapshot[] snapshots = new FeatureSnapshot[to - from];
+        pool.submit(() -> IntStream.range(from, to).parallel().forEach(i -> {
+            if (missing[i]) return;
+            try {
+                MappedGraph graph;
+                try {
+                    graph = openGraph(i);
+                } catch (IOException e) {
+                    writeGraph(i);
+                    graph = openGraph(i);
+                }
+                FeatureSnapshot snapshot = FeatureSnapshot.of(graph);
+                snapshot.getIndex();   // Built here once, not by the first pair that needs it
+                snapshots[i - from] = snapshot;
+            } catch (IOException e) {
+                missing[i] = true;
+            }
+        })).join();
+        return snapshots;
+    }
+
+    /**
+     * Scores the pairs i &lt; j of a block in parallel, then records them in
+     * a fixed order so the result does not depend on scheduling.
+     */
+    private void scoreBlock(int row, int column, FeatureSnapshot[] rowSnapshots, FeatureSnapshot[] columnSnapshots,
+                            ForkJoinPool pool) {
+        int rowFrom = row * blockSize, columnFrom = column * blockSize;
+        double[] scores = new double[rowSnapshots.length * columnSnapshots.length];
+        pool.submit(() -> IntStream.range(0, scores.length).parallel().forEach(p -> {
+            int a = p / columnSnapshots.length, b = p % columnSnapshots.length;
+            FeatureSnapshot s1 = rowSnapshots[a], s2 = columnSnapshots[b];
+            scores[p] = rowFrom + a < columnFrom + b && s1 != null && s2 != null
+                ? SimilarityDetector.calculateSimilarity(s1, s2, k).similarityScore : Double.NaN;
+        })).join();
+
+        for (int p = 0; p < scores.length; p++) {
+            if (Double.isNaN(scores[p])) continue;
+            int i = rowFrom + p / columnSnapshots.length, j = columnFrom + p % columnSnapshots.length;
+            offer(i, j, scores[p]);
+            offer(j, i, scores[p]);
+            if (scores[p] >= threshold) union(i, j);
+        }
+    }
+
+    /**
+     * Maps an image's graph file, rejecting one built with another region size.
+     */
+    private MappedGraph openGraph(int i) throws IOException {
+        MappedGraph graph = MappedGraph.open(graphFile(i));
+        if (graph.getRegionSize() != regionSize) {
+            throw new IOException("Graph file has region size " + graph.getRegionSize() + ": " + graph.getFile());
+        }
+        return graph;
+    }
+
+    /**
+     * Graph files are named after the image's index, path and the region size,
+     * so jobs sharing a work directory never pick up each other's graphs and
+     * an image listed twice gets two files rather than two concurrent writers.
+     */
+    private File graphFile(int i) {
+        File image = images.get(i);
+        return new File(new File(workDirectory, GRAPHS), i + "-" + image.getName() + "-"
+                        + Integer.toHexString(image.getAbsolutePath().hashCode()) + "-r" + regionSize + ".pgg");
+    }
+
+    // --- Top-k Lists ---
+
+    /**
+     * Offers a neighbour to an image's bounded min-heap of its best matches.
+     */
+    private void offer(int image, int neighbor, double score) {
+        int base = image * topK, count = neighborCounts[image];
+        if (count < topK) {
+            int i = count;
+            while (i > 0) { // Sift up
+                int up = (i - 1) / 2;
+                if (!weaker(score, neighbor, neighborScores[base + up], neighborIds[base + up])) break;
+                neighborScores[base + i] = neighborScores[base + up];
+                neighborIds[base + i] = neighborIds[base + up];
+                i = up;
+            }
+            neighborScores[base + i] = score;
+            neighborIds[base + i] = neighbor;
+            neighborCounts[image]++;
+        } else if (weaker(neighborScores[base], neighborIds[base], score, neighbor)) {
+            int i = 0;
+            while (true) { // Sift down from the root
+                int child = 2 * i + 1;
+                if (child >= count) break;
+                if (child + 1 < count && weaker(neighborScores[base + child + 1], neighborIds[base + child + 1],
+                                                neighborScores[base + child], neighborIds[base + child])) child++;
+                if (!weaker(neighborScores[base + child], neighborIds[base + child], score, neighbor)) break;
+                neighborScores[base + i] = neighborScores[base + child];
+                neighborIds[base + i] = neighborIds[base + child];
+                i = child;
+            }
+            neighborScores[base + i] = score;
+            neighborIds[base + i] = neighbor;
+        }
+    }
+
+    /**
+     * Lower scores are weaker; on equal scores the higher index is.
+     */
+    private static boolean weaker(double s1, int id1, double s2, int id2) {
+        return s1 < s2 || (s1 == s2 && id1 > id2);
+    }
+
+    // --- Clusters ---
+
+    private int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]]; // Path halving
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Joins two clusters under the smaller root, so labels do not depend on
+     * the order pairs were scored in.
+     */
+    private void union(int a, int b) {
+        int ra = find(a), rb = find(b);
+        if (ra < rb) parent[rb] = ra;
+        else if (rb < ra) parent[ra] = rb;
+    }
+
+    // --- Checkpoints ---
+
+    private void resetState() {
+        int n = images.size();
+        nextBlock = 0;
+        completedBlocks = 0;
+        neighborCounts = new int[n];
+        neighborIds = new int[n * topK];
+        neighborScores = new double[n * topK];
+        parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+    }
+
+    private void saveCheckpoint(File file) throws IOException {
+        File temp = new File(file.getAbsolutePath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeSettings(out);
+            out.writeInt(nextBlock);
+            for (int i = 0; i < images.size(); i++) {
+                out.writeInt(neighborCounts[i]);
+                for (int slot = 0; slot < neighborCounts[i]; slot++) {
+                    out.writeInt(neighborIds[i * topK + slot]);
+                    out.writeDouble(neighborScores[i * topK + slot]);
+                }
+                out.writeInt(parent[i]);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void loadCheckpoint(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a corpus checkpoint: " + file);
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) throw new IOException("Unsupported checkpoint version " + version + ": " + file);
+
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            writeSettings(new DataOutputStream(expected));
+            byte[] settings = new byte[expected.size()];
+            in.readFully(settings);
+            if (!Arrays.equals(settings, expected.toByteArray())) {
+                throw new IOException("Checkpoint belongs to a different job; remove it to start over: " + file);
+            }
+
+            resetState();
+            int n = images.size();
+            nextBlock = in.readInt();
+            if (nextBlock < 0 || nextBlock > getBlockCount()) throw new IOException("Damaged checkpoint: " + file);
+            completedBlocks = nextBlock;
+            for (int i = 0; i < n; i++) {
+                neighborCounts[i] = in.readInt();
+                if (neighborCounts[i] < 0 || neighborCounts[i] > topK) throw new IOException("Damaged checkpoint: " + file);
+                for (int slot = 0; slot < neighborCounts[i]; slot++) {
+                    neighborIds[i * topK + slot] = in.readInt();
+                    neighborScores[i * topK + slot] = in.readDouble();
+                    int id = neighborIds[i * topK + slot];
+                    if (id < 0 || id >= n || id == i) throw new IOException("Damaged checkpoint: " + file);
+                }
+                parent[i] = in.readInt();
+                // Links only point to smaller indices, which also rules out cycles
+                if (parent[i] < 0 || parent[i] > i) throw new IOException("Damaged checkpoint: " + file);
+            }
+        }
+    }
+
+    /**
+     * Everything that decides the job's result, so a checkpoint is only
+     * resumed by the job that wrote it.
+     */
+    private void writeSettings(DataOutputStream out) throws IOException {
+        out.writeInt(images.size());
+        out.writeInt(regionSize);
+        out.writeInt(k);
+        out.writeInt(topK);
+        out.writeDouble(threshold);
+        out.writeInt(blockSize);
+        long fingerprint = 1125899906842597L;
+        for (File image : images) fingerprint = 31 * fingerprint + image.getAbsolutePath().hashCode();
+        out.writeLong(fingerprint);
+        out.flush();
+    }
+
+    // --- Accessors ---
+    public int getBlockCount() {
+        int rows = (images.size() + blockSize - 1) / blockSize;
+        return rows * (rows + 1) / 2;
+    }
+
+    /** @return Blocks finished so far, including those restored from a checkpoint */
+    public int getCompletedBlocks() { return completedBlocks; }
+    public double getThreshold() { return threshold; }
+
+    /**
+     * Neighbour lists and clusters of a finished job.
+     */
+    public static class Result {
+        private final List<File> images;
+        private final int topK;
+        private final boolean[] missing;
+        private final int[] labels;
+        private final int[] neighborCounts;
+        private final int[] neighborIds;
+        private final double[] neighborScores;
+
+        Result(List<File> images, int topK, boolean[] missing, int[] labels,
+               int[] neighborCounts, int[] neighborIds, double[] neighborScores) {
+            this.images = Collections.unmodifiableList(new ArrayList<>(images));
+            this.topK = topK;
+            this.missing = missing;
+            this.labels = labels;
+            this.neighborCounts = neighborCounts;
+            this.neighborIds = neighborIds;
+            this.neighborScores = neighborScores;
+        }
+
+        /**
+         * @return The image's most similar images, best first
+         */
+        public List<Neighbor> getNeighbors(int image) {
+            List<Neighbor> neighbors = new ArrayList<>();
+            for (int slot = 0; slot < neighborCounts[image]; slot++) {
+                neighbors.add(new Neighbor(neighborIds[image * topK + slot], neighborScores[image * topK + slot]));
+            }
+            neighbors.sort((a, b) -> a.score != b.score ? Double.compare(b.score, a.score)
+                                                        : Integer.compare(a.index, b.index));
+            return neighbors;
+        }
+
+        /**
+         * @return Clusters of two or more images, largest first; images in
+         *         each cluster in index order
+         */
+        public List<List<Integer>> getClusters() {
+            Map<Integer, List<Integer>> byLabel = new TreeMap<>();
+            for (int i = 0; i < labels.length; i++) byLabel.computeIfAbsent(labels[i], l -> new ArrayList<>()).add(i);
+            List<List<Integer>> clusters = new ArrayList<>();
+            for (List<Integer> members : byLabel.values()) if (members.size() > 1) clusters.add(members);
+            clusters.sort((a, b) -> Integer.compare(b.size(), a.size()));
+            return clusters;
+        }
+
+        /** @return Cluster label of an image: the smallest index in its cluster */
+        public int getCluster(int image) { return labels[image]; }
+
+        /** @return Whether the image could not be read and took part in no pairs */
+        public boolean isMissing(int image) { return missing[image]; }
+
+        public File getImage(int image) { return images.get(image); }
+        public int size() { return images.size(); }
+    }
+
+    /**
+     * One entry of an image's top-k list.
+     */
+    public static class Neighbor {
+        public final int index;
+        public final double score;
+
+        Neighbor(int index, double score) {
+            this.index = index;
+            this.score = score;
+        }
+    }
+}
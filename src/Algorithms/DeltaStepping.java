@@ -0,0 +1,311 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Graph.IndexedGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Parallel single-source shortest paths (delta-stepping) for indexed graphs.
+ * Tentative distances are grouped into buckets of width delta. All vertices
+ * of the lowest bucket are relaxed together across a ForkJoinPool: light
+ * edges (weight at most delta) repeatedly until the bucket stops changing,
+ * then heavy edges once.
+ *
+ * <p>Distances are updated with a lock-free compare-and-set minimum. Because
+ * floating-point addition of non-negative weights is monotone, the fixed
+ * point reached is bit-for-bit the one Dijkstra computes, whatever order the
+ * threads relax edges in. Obstacles are skipped exactly as in Pathfinder.
+ */
+public class DeltaStepping {
+    /** Frontiers smaller than this are relaxed on the calling thread */
+    private static final int SEQUENTIAL_CUTOFF = 1024;
+    /** Vertices sampled when tuning delta */
+    private static final int TUNING_SAMPLES = 4096;
+    /** Tuned delta as a multiple of the sampled mean edge weight */
+    private static final double DELTA_PER_MEAN_WEIGHT = 2.0;
+
+    /**
+     * Distances and shortest-path tree from one source.
+     */
+    public static class Result {
+        public final int source;
+        public final double delta;
+        public final double[] distances;    // Infinity for unreachable regions
+        public final int[] predecessors;    // -1 for the source and unreachable regions
+
+        Result(int source, double delta, double[] distances, int[] predecessors) {
+            this.source = source;
+            this.delta = delta;
+            this.distances = distances;
+            this.predecessors = predecessors;
+        }
+
+        /**
+         * @return Ids from the source to end, or an empty array if end is
+         *         unreachable or is the source itself
+         */
+        public int[] getPath(int end) {
+            if (predecessors[end] == -1) return new int[0];
+            int length = 1;
+            for (int v = end; predecessors[v] != -1; v = predecessors[v]) length++;
+            int[] path = new int[length];
+            for (int v = end, i = length - 1; i >= 0; v = predecessors[v], i--) path[i] = v;
+            return path;
+        }
+    }
+
+    /**
+     * Runs delta-stepping with a tuned bucket width on all available cores.
+     * @param graph Graph to search
+     * @param source Starting region id
+     */
+    public static Result shortestPaths(IndexedGraph graph, int source) {
+        return shortestPaths(graph, source, tuneDelta(graph), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Runs delta-stepping.
+     * @param graph Graph to search
+     * @param source Starting region id
+     * @param delta Bucket width (positive)
+     * @param parallelism Number of worker threads (1 runs on the calling thread)
+     */
+    public static Result shortestPaths(IndexedGraph graph, int source, double delta, int parallelism) {
+        if (!(delta > 0)) throw new IllegalArgumentException("Bucket width must be positive");
+
+        Run run = new Run(graph, delta);
+        ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            run.solve(source, pool);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+
+        double[] distances = new double[graph.getVertexCount()];
+        for (int v = 0; v < distances.length; v++) distances[v] = Double.longBitsToDouble(run.distances.get(v));
+        return new Result(source, delta, distances, predecessors(graph, source, distances));
+    }
+
+    /**
+     * Picks a bucket width from the graph's own edge weights: twice the mean weight
+     * of the edges leaving an evenly spaced sample of passable regions. Region
+     * grids have degree at most 4 and strongly skewed weights (flat areas cost
+     * about one region size, colour boundaries many times more), so this keeps
+     * the cheap edges light while bounding the re-relaxations per bucket.
+     */
+    public static double tuneDelta(IndexedGraph graph) {
+        int count = graph.getVertexCount();
+        int step = Math.max(1, count / TUNING_SAMPLES);
+        double sum = 0;
+        int edges = 0;
+        for (int v = 0; v < count; v += step) {
+            if (graph.isObstacle(v)) continue;
+            for (int i = 0; i < graph.getDegree(v); i++) {
+                if (graph.isObstacle(graph.getNeighbor(v, i))) continue;
+                sum += graph.getWeight(v, i);
+                edges++;
+            }
+        }
+        return edges > 0 ? DELTA_PER_MEAN_WEIGHT * sum / edges : 1.0;
+    }
+
+    // --- Bucket Processing ---
+
+    /**
+     * State of one query.
+     */
+    private static class Run {
+        final IndexedGraph graph;
+        final double delta;
+        final AtomicLongArray distances;    // Raw double bits; non-negative doubles order like longs
+        final List<IntList> buckets = new ArrayList<>();
+        final int[] phaseStamp;             // Last light phase a vertex was queued for
+        final int[] bucketStamp;            // Last bucket a vertex was settled in
+        int phase;
+
+        Run(IndexedGraph graph, double delta) {
+            this.graph = graph;
+            this.delta = delta;
+            int count = graph.getVertexCount();
+            distances = new AtomicLongArray(count);
+            for (int v = 0; v < count; v++) distances.set(v, Double.doubleToRawLongBits(Double.POSITIVE_INFINITY));
+            phaseStamp = new int[count];
+            bucketStamp = new int[count];
+            Arrays.fill(bucketStamp, -1);
+        }
+
+        void solve(int source, ForkJoinPool pool) {
+            distances.set(source, Double.doubleToRawLongBits(0.0));
+            bucket(0).add(source);
+
+            for (int i = 0; i < buckets.size(); i++) {
+                IntList settled = new IntList();
+                // Light phases: relax until no distance in bucket i changes
+                while (buckets.get(i) != null && buckets.get(i).size > 0) {
+                    IntList frontier = drain(i, settled);
+                    enqueue(relax(frontier, true, pool));
+                }
+                // Heavy edges leave the bucket, so one pass from the settled vertices suffices
+                if (settled.size > 0) enqueue(relax(settled, false, pool));
+                buckets.set(i, null);
+            }
+        }
+
+        /**
+         * Takes the live entries of bucket i, dropping stale and duplicate ones.
+         */
+        private IntList drain(int i, IntList settled) {
+            IntList entries = buckets.get(i);
+            buckets.set(i, new IntList());
+            phase++;
+            IntList frontier = new IntList();
+            for (int k = 0; k < entries.size; k++) {
+                int v = entries.items[k];
+                if (bucketIndex(v) != i || phaseStamp[v] == phase) continue;
+                phaseStamp[v] = phase;
+                frontier.add(v);
+                if (bucketStamp[v] != i) {
+                    bucketStamp[v] = i;
+                    settled.add(v);
+                }
+            }
+            return frontier;
+        }
+
+        private IntList relax(IntList frontier, boolean light, ForkJoinPool pool) {
+            RelaxTask task = new RelaxTask(this, frontier, 0, frontier.size, light);
+            return pool == null || frontier.size < SEQUENTIAL_CUTOFF ? task.compute() : pool.invoke(task);
+        }
+
+        /**
+         * Files every improved vertex under the bucket of its current distance.
+         */
+        private void enqueue(IntList improved) {
+            for (int k = 0; k < improved.size; k++) {
+                int v = improved.items[k];
+                bucket(bucketIndex(v)).add(v);
+            }
+        }
+
+        private int bucketIndex(int v) {
+            return (int) (Double.longBitsToDouble(distances.get(v)) / delta);
+        }
+
+        private IntList bucket(int i) {
+            while (buckets.size() <= i) buckets.add(new IntList());
+            if (buckets.get(i) == null) buckets.set(i, new IntList());
+            return buckets.get(i);
+        }
+
+        /**
+         * Lowers a tentative distance with compare-and-set.
+         * @return true if this call lowered it
+         */
+        boolean lower(int v, double distance) {
+            long bits = Double.doubleToRawLongBits(distance);
+            long current = distances.get(v);
+            while (bits < current) {
+                if (distances.compareAndSet(v, current, bits)) return true;
+                current = distances.get(v);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Relaxes the light or heavy edges of a slice of the frontier, splitting
+     * the slice across the pool; returns the targets it improved.
+     */
+    private static class RelaxTask extends RecursiveTask<IntList> {
+        private static final long serialVersionUID = 1L;
+
+        private final Run run;
+        private final IntList frontier;
+        private final int from, to;
+        private final boolean light;
+
+        RelaxTask(Run run, IntList frontier, int from, int to, boolean light) {
+            this.run = run;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.light = light;
+        }
+
+        @Override
+        protected IntList compute() {
+            if (to - from > SEQUENTIAL_CUTOFF && inForkJoinPool()) {
+                int mid = (from + to) >>> 1;
+                RelaxTask left = new RelaxTask(run, frontier, from, mid, light);
+                left.fork();
+                IntList improved = new RelaxTask(run, frontier, mid, to, light).compute();
+                improved.addAll(left.join());
+                return improved;
+            }
+
+            IndexedGraph graph = run.graph;
+            IntList improved = new IntList();
+            for (int k = from; k < to; k++) {
+                int u = frontier.items[k];
+                double base = Double.longBitsToDouble(run.distances.get(u));
+                for (int i = 0; i < graph.getDegree(u); i++) {
+                    double weight = graph.getWeight(u, i);
+                    if ((weight <= run.delta) != light) continue;
+                    int v = graph.getNeighbor(u, i);
+                    if (graph.isObstacle(v)) continue;
+                    if (run.lower(v, base + weight)) improved.add(v);
+                }
+            }
+            return improved;
+        }
+    }
+
+    /**
+     * Rebuilds a shortest-path tree from final distances: each region points to
+     * its first neighbour (in adjacency order) that realises its distance.
+     * Edge weights are symmetric, so v's own adjacency lists the edges into v.
+     */
+    private static int[] predecessors(IndexedGraph graph, int source, double[] distances) {
+        int[] predecessors = new int[distances.length];
+        Arrays.fill(predecessors, -1);
+        for (int v = 0; v < distances.length; v++) {
+            if (v == source || distances[v] == Double.POSITIVE_INFINITY) continue;
+            for (int i = 0; i < graph.getDegree(v); i++) {
+                int u = graph.getNeighbor(v, i);
+                if (u != source && graph.isObstacle(u)) continue;
+                if (distances[u] + graph.getWeight(v, i) == distances[v]) {
+                    predecessors[v] = u;
+                    break;
+                }
+            }
+        }
+        return predecessors;
+    }
+
+    /**
+     * Growable int array.
+     */
+    private static class IntList {
+        int[] items = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = value;
+        }
+
+        void addAll(IntList other) {
+            if (size + other.size > items.length) items = Arrays.copyOf(items, Math.max(size + other.size, size * 2));
+            System.arraycopy(other.items, 0, items, size, other.size);
+            size += other.size;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Graph.ImageGraph;
+import Graph.IndexedGraph;
+import Graph.Vertex;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Dense shortest-path distances between a set of sources and a set of targets
+ * (e.g. pothole locations and depots).
+ * Each source runs one Dijkstra that stops as soon as every reachable target is
+ * settled, instead of one search per pair. Sources are spread over a thread
+ * pool, and each worker reuses its own SearchEngine across sources.
+ */
+public class DistanceMatrix {
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] distances;   // Row-major: distances[i * targets.length + j]
+    private final int[][] paths;        // Same layout; null unless paths were requested
+
+    private DistanceMatrix(int[] sources, int[] targets, double[] distances, int[][] paths) {
+        this.sources = sources;
+        this.targets = targets;
+        this.distances = distances;
+        this.paths = paths;
+    }
+
+    /**
+     * Computes distances only, on all available cores.
+     */
+    public static DistanceMatrix compute(IndexedGraph graph, int[] sources, int[] targets) {
+        return compute(graph, sources, targets, false, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Computes the matrix.
+     * @param graph Graph to search
+     * @param sources Starting region ids (rows)
+     * @param targets Target region ids (columns); obstacle targets stay unreachable
+     * @param withPaths Whether to keep the path of every pair
+     * @param parallelism Number of sources searched at once
+     */
+    public static DistanceMatrix compute(IndexedGraph graph, int[] sources, int[] targets,
+                                         boolean withPaths, int parallelism) {
+        int[] rows = sources.clone(), columns = targets.clone();
+        double[] distances = new double[rows.length * columns.length];
+        int[][] paths = withPaths ? new int[distances.length][] : null;
+
+        // Shared, read-only target marks; obstacles can never be settled
+        boolean[] isTarget = new boolean[graph.getVertexCount()];
+        int passableTargets = 0;
+        for (int target : columns) {
+            if (isTarget[target]) continue;
+            isTarget[target] = true;
+            if (!graph.isObstacle(target)) passableTargets++;
+        }
+        int reachableTargets = passableTargets;
+
+        ThreadLocal<SearchEngine> engines = ThreadLocal.withInitial(() -> new SearchEngine(graph.getVertexCount()));
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.submit(() -> IntStream.range(0, rows.length).parallel().forEach(i -> {
+                SearchEngine engine = engines.get();
+                int source = rows[i];
+                // An obstacle source is still settled, so count it if it is a target
+                int wanted = reachableTargets + (isTarget[source] && graph.isObstacle(source) ? 1 : 0);
+                engine.searchTargets(graph, source, isTarget, wanted);
+
+                for (int j = 0; j < columns.length; j++) {
+                    int cell = i * columns.length + j;
+                    distances[cell] = engine.isSettled(columns[j])
+                        ? engine.getDistance(columns[j]) : Double.POSITIVE_INFINITY;
+                    if (paths != null) paths[cell] = pathTo(engine, source, columns[j]);
+                }
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+        return new DistanceMatrix(rows, columns, distances, paths);
+    }
+
+    /**
+     * Computes the matrix between ImageGraph vertices, on a snapshot of its
+     * regions as they are now. The snapshot has the same edges and weights,
+     * so each entry equals Pathfinder.dijkstra between the two vertices.
+     */
+    public static DistanceMatrix compute(ImageGraph graph, List<Vertex> sources, List<Vertex> targets,
+                                         boolean withPaths) {
+        IndexedGraph snapshot = graph.snapshot();
+        return compute(snapshot, idsOf(snapshot, sources), idsOf(snapshot, targets),
+                       withPaths, Runtime.getRuntime().availableProcessors());
+    }
+
+    private static int[] idsOf(IndexedGraph graph, List<Vertex> vertices) {
+        int[] ids = new int[vertices.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = graph.vertexAt(vertices.get(i).getX(), vertices.get(i).getY());
+            if (ids[i] == -1) throw new IllegalArgumentException("Vertex " + vertices.get(i).getId() + " is not a region of this graph");
+        }
+        return ids;
+    }
+
+    private static int[] pathTo(SearchEngine engine, int source, int target) {
+        if (target == source) return new int[] { source };
+        return engine.isSettled(target) ? engine.getPath(target) : new int[0];
+    }
+
+    // --- Accessors ---
+
+    /**
+     * @return Shortest distance from sources[i] to targets[j]; 0 on the
+     *         diagonal, infinity if unreachable
+     */
+    public double getDistance(int i, int j) {
+        return distances[i * targets.length + j];
+    }
+
+    /**
+     * @return Region ids from sources[i] to targets[j], empty if unreachable
+     * @throws IllegalStateException if the matrix was computed without paths
+     */
+    public int[] getPath(int i, int j) {
+        if (paths == null) throw new IllegalStateException("Matrix was computed without paths");
+        return paths[i * targets.length + j].clone();
+    }
+
+    public boolean hasPaths() { return paths != null; }
+    public int getSourceCount() { return sources.length; }
+    public int getTargetCount() { return targets.length; }
+    public int getSource(int i) { return sources[i]; }
+    public int getTarget(int j) { return targets[j]; }
+}
@@ -0,0 +1,69 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Graph.ImageGraph;
+import Graph.IndexedGraph;
+import Graph.Vertex;
+import java.util.BitSet;
+
+/**
+ * Compact record of the regions a search settled: one bit per region of a
+ * row-major region grid, instead of a List of Vertex objects.
+ */
+public class ExploredTrace implements SearchListener {
+    private final int regionSize;
+    private final int columns;
+    private final BitSet settled = new BitSet();
+
+    /**
+     * @param regionSize Region edge length in pixels
+     * @param columns Regions per grid row
+     */
+    public ExploredTrace(int regionSize, int columns) {
+        this.regionSize = regionSize;
+        this.columns = columns;
+    }
+
+    /**
+     * Trace sized for an image graph's region grid.
+     */
+    public static ExploredTrace forGraph(ImageGraph graph) {
+        int size = graph.getRegionSize();
+        return new ExploredTrace(size, (graph.getImage().getWidth() + size - 1) / size);
+    }
+
+    /**
+     * Trace sized for an indexed graph's region grid.
+     */
+    public static ExploredTrace forGraph(IndexedGraph graph) {
+        return new ExploredTrace(graph.getRegionSize(), graph.getColumns());
+    }
+
+    @Override
+    public void settled(Vertex vertex) {
+        settled.set((vertex.getY() / regionSize) * columns + vertex.getX() / regionSize);
+    }
+
+    @Override
+    public void settled(int id) {
+        settled.set(id);
+    }
+
+    /**
+     * Forgets all settled regions so the trace can be reused.
+     */
+    public void clear() {
+        settled.clear();
+    }
+
+    // --- Accessors ---
+    public boolean contains(int id) { return settled.get(id); }
+    public int count() { return settled.cardinality(); }
+    public int nextSettled(int fromId) { return settled.nextSetBit(fromId); }
+    public int getX(int id) { return (id % columns) * regionSize; }
+    public int getY(int id) { return (id / columns) * regionSize; }
+    public int getRegionSize() { return regionSize; }
+}
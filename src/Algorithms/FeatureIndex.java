@@ -0,0 +1,318 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Graph.DistanceKernels;
+import Graph.Graph;
+import Graph.IndexedGraph;
+import Graph.Vertex;
+import java.util.*;
+
+/**
+ * KD-tree over region feature vectors for nearest and k-nearest lookups.
+ * Region features are low-dimensional (mean RGB), where a KD-tree visits a
+ * few dozen points per query instead of every region of the other graph.
+ *
+ * <p>Answers are identical to a brute-force scan: distances are computed the
+ * same way as Vertex.featureDistance, branches are only pruned when they
+ * cannot hold a point at least as close, and equal distances go to the point
+ * listed first.
+ *
+ * <p>Indexes attached to a Graph are rebuilt when its version changes. Features
+ * replaced with Vertex.setFeatures afterwards are not seen, so build a new
+ * index after doing that.
+ */
+public class FeatureIndex {
+    private static final int LEAF_SIZE = 8;
+    private static final double PRUNE_SLACK = 1e-9;   // Keeps rounding from pruning a tie
+
+    /** Indexes attached to graphs; entries go away with their graph */
+    private static final Map<Object, FeatureIndex> ATTACHED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int dimension;
+    private final int size;             // Indexed points (null vectors are left out)
+    private final double[] coords;      // Points in tree order, column-major: value d of point i at d * size + i
+    private final int[] ids;            // Position of each tree point in the input list
+    private final byte[] axes;          // Split axis of the node whose median sits at each position
+    private final List<Vertex> vertices; // Input vertices when built from a Graph, else null
+    private final long version;          // Graph version the index describes
+
+    private FeatureIndex(List<double[]> points, List<Vertex> vertices, long version) {
+        this.vertices = vertices;
+        this.version = version;
+
+        int[] order = new int[points.size()];
+        int count = 0, dim = -1;
+        for (int i = 0; i < points.size(); i++) {
+            double[] p = points.get(i);
+            if (p == null) continue;
+            if (dim == -1) dim = p.length;
+            else if (p.length != dim) throw new IllegalArgumentException("Feature vectors differ in length");
+            order[count++] = i;
+        }
+        this.dimension = Math.max(dim, 0);
+        this.size = count;
+        this.ids = Arrays.copyOf(order, count);
+        this.axes = new byte[count];
+
+        build(points, 0, count);
+        coords = new double[count * dimension];
+        for (int i = 0; i < count; i++) {
+            double[] p = points.get(ids[i]);
+            for (int d = 0; d < dimension; d++) coords[d * count + i] = p[d];
+        }
+    }
+
+    // --- Construction ---
+
+    /**
+     * Indexes a list of feature vectors; null entries are skipped.
+     */
+    public static FeatureIndex build(List<double[]> points) {
+        return new FeatureIndex(points, null, 0);
+    }
+
+    /**
+     * Returns the index attached to a graph, building it on first use or after
+     * the graph changed. Point i is the i-th vertex of graph.getVertices().
+     */
+    public static FeatureIndex of(Graph graph) {
+        synchronized (ATTACHED) {
+            FeatureIndex index = ATTACHED.get(graph);
+            if (index != null && index.version == graph.getVersion()) return index;
+        }
+        long version = graph.getVersion();
+        List<Vertex> vertices = Collections.unmodifiableList(graph.getVertices());
+        List<double[]> points = new ArrayList<>(vertices.size());
+        for (Vertex v : vertices) points.add(v.getFeatures());
+        FeatureIndex index = new FeatureIndex(points, vertices, version);
+        ATTACHED.put(graph, index);
+        return index;
+    }
+
+    /**
+     * Returns the index attached to an indexed graph, building it on first use.
+     * Point i is region i.
+     */
+    public static FeatureIndex of(IndexedGraph graph) {
+        FeatureIndex index = ATTACHED.get(graph);
+        if (index != null) return index;
+        List<double[]> points = new ArrayList<>(graph.getVertexCount());
+        for (int id = 0; id < graph.getVertexCount(); id++) points.add(graph.getFeatures(id));
+        index = build(points);
+        // Built outside the lock; if another thread attached one meanwhile, use that
+        FeatureIndex attached = ATTACHED.putIfAbsent(graph, index);
+        return attached != null ? attached : index;
+    }
+
+    /**
+     * Arranges ids[lo, hi) into an implicit tree: the median along the axis
+     * of widest spread sits in the middle, smaller values to its left.
+     */
+    private void build(List<double[]> points, int lo, int hi) {
+        if (hi - lo <= LEAF_SIZE) return;
+        int axis = 0;
+        double widest = -1;
+        for (int d = 0; d < dimension; d++) {
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double value = points.get(ids[i])[d];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widest) {
+                widest = max - min;
+                axis = d;
+            }
+        }
+        int mid = (lo + hi) >>> 1;
+        select(points, lo, hi - 1, mid, axis);
+        axes[mid] = (byte) axis;
+        build(points, lo, mid);
+        build(points, mid + 1, hi);
+    }
+
+    /**
+     * Quickselect: moves the k-th smallest value along the axis to position k.
+     */
+    private void select(List<double[]> points, int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = points.get(ids[(left + right) >>> 1])[axis];
+            int i = left, j = right;
+            while (i <= j) {
+                while (points.get(ids[i])[axis] < pivot) i++;
+                while (points.get(ids[j])[axis] > pivot) j--;
+                if (i <= j) {
+                    int t = ids[i]; ids[i] = ids[j]; ids[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+
+    // --- Queries ---
+
+    /**
+     * @return Input position of the closest point (the first listed on ties),
+     *         or -1 if the query is null or nothing is indexed
+     */
+    public int nearest(double[] query) {
+        Neighbors best = search(query, 1);
+        return best.count == 0 ? -1 : best.ids[0];
+    }
+
+    /**
+     * @return Distance to the closest point, or infinity if there is none
+     */
+    public double nearestDistance(double[] query) {
+        Neighbors best = search(query, 1);
+        return best.count == 0 ? Double.POSITIVE_INFINITY : best.distances[0];
+    }
+
+    /**
+     * @return Input positions of the k closest points, closest first (fewer
+     *         if fewer points are indexed)
+     */
+    public int[] nearest(double[] query, int k) {
+        Neighbors best = search(query, k);
+        best.sort();
+        return Arrays.copyOf(best.ids, best.count);
+    }
+
+    /**
+     * @return Distances to the k closest points in ascending order (fewer if
+     *         fewer points are indexed)
+     */
+    public double[] nearestDistances(double[] query, int k) {
+        Neighbors best = search(query, k);
+        best.sort();
+        return Arrays.copyOf(best.distances, best.count);
+    }
+
+    private Neighbors search(double[] query, int k) {
+        Neighbors best = new Neighbors(Math.max(0, Math.min(k, size)));
+        if (query != null && best.capacity > 0) search(query, 0, size, best);
+        return best;
+    }
+
+    private void search(double[] query, int lo, int hi, Neighbors best) {
+        if (hi - lo <= LEAF_SIZE) {
+            // Whole leaf in one batch: its points sit side by side in each column
+            DistanceKernels.squaredDistances(query, coords, size, lo, hi, best.leaf);
+            for (int i = lo; i < hi; i++) best.offer(Math.sqrt(best.leaf[i - lo]), ids[i]);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int axis = axes[mid];
+        double diff = query[axis] - coords[axis * size + mid];
+
+        // Near side first, so the far side is usually pruned
+        if (diff < 0) search(query, lo, mid, best);
+        else search(query, mid + 1, hi, best);
+
+        best.offer(distance(query, mid), ids[mid]);
+        if (!best.isFull() || Math.abs(diff) <= best.worst() * (1 + PRUNE_SLACK)) {
+            if (diff < 0) search(query, mid + 1, hi, best);
+            else search(query, lo, mid, best);
+        }
+    }
+
+    /**
+     * Same arithmetic as Vertex.featureDistance, so distances match bit for bit.
+     */
+    private double distance(double[] query, int position) {
+        return Math.sqrt(DistanceKernels.squaredDistance(query, coords, size, position));
+    }
+
+    // --- Accessors ---
+    public int size() { return size; }
+    public int getDimension() { return dimension; }
+
+    /**
+     * @return The input vertex at a position returned by a query
+     * @throws IllegalStateException if the index was not built from a Graph
+     */
+    public Vertex getVertex(int position) {
+        if (vertices == null) throw new IllegalStateException("Index was not built from a graph");
+        return vertices.get(position);
+    }
+
+    /**
+     * Bounded max-heap of the best candidates so far, ordered by distance and
+     * then input position, so the root is the one to evict next.
+     */
+    private static class Neighbors {
+        final int capacity;
+        final double[] distances;
+        final int[] ids;
+        final double[] leaf = new double[LEAF_SIZE];   // Squared distances of the leaf being scanned
+        int count;
+
+        Neighbors(int capacity) {
+            this.capacity = capacity;
+            this.distances = new double[capacity];
+            this.ids = new int[capacity];
+        }
+
+        boolean isFull() { return count == capacity; }
+        double worst() { return distances[0]; }
+
+        void offer(double distance, int id) {
+            if (count < capacity) {
+                int i = count++;
+                while (i > 0) { // Sift up
+                    int parent = (i - 1) / 2;
+                    if (!worse(distance, id, distances[parent], ids[parent])) break;
+                    distances[i] = distances[parent];
+                    ids[i] = ids[parent];
+                    i = parent;
+                }
+                distances[i] = distance;
+                ids[i] = id;
+            } else if (capacity > 0 && worse(distances[0], ids[0], distance, id)) {
+                siftDown(distance, id, count);
+            }
+        }
+
+        /**
+         * Places an entry at the root and sinks it within the first n slots.
+         */
+        private void siftDown(double distance, int id, int n) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= n) break;
+                if (child + 1 < n && worse(distances[child + 1], ids[child + 1], distances[child], ids[child])) child++;
+                if (!worse(distances[child], ids[child], distance, id)) break;
+                distances[i] = distances[child];
+                ids[i] = ids[child];
+                i = child;
+            }
+            distances[i] = distance;
+            ids[i] = id;
+        }
+
+        /**
+         * Heapsort in place, leaving the entries closest first.
+         */
+        void sort() {
+            for (int n = count - 1; n > 0; n--) {
+                double d = distances[n];
+                int id = ids[n];
+                distances[n] = distances[0];
+                ids[n] = ids[0];
+                siftDown(d, id, n);
+            }
+        }
+
+        private static boolean worse(double d1, int id1, double d2, int id2) {
+            return d1 > d2 || (d1 == d2 && id1 > id2);
+        }
+    }
+}
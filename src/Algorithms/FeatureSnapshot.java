@@ -0,0 +1,129 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Graph.Graph;
+import Graph.GraphStats;
+import Graph.IndexedGraph;
+import Graph.Vertex;
+import java.util.*;
+
+/**
+ * Immutable copy of what the similarity metrics read from a graph: one
+ * feature vector per vertex and the degree histogram (taken from the graph's
+ * maintained GraphStats for a Graph). Taking it walks the graph once, so the
+ * metrics can then run side by side without each copying the vertex map, and
+ * without seeing the graph change under them.
+ *
+ * <p>Vertices keep the order of graph.getVertices() (region id order for
+ * indexed graphs). Snapshots attached to a Graph are retaken when its
+ * version changes.
+ */
+public class FeatureSnapshot {
+    /** Snapshots attached to graphs; entries go away with their graph */
+    private static final Map<Object, FeatureSnapshot> ATTACHED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final double[][] vectors;   // Copy of each vertex's features, null if it has none
+    private final int featured;         // Vertices with features
+    private final int[] degreeCounts;   // Vertices per degree
+    private final long version;         // Graph version the snapshot describes
+    private FeatureIndex index;         // Built on first use
+
+    private FeatureSnapshot(double[][] vectors, int[] degreeCounts, long version) {
+        this.vectors = vectors;
+        this.degreeCounts = degreeCounts;
+        this.version = version;
+        int count = 0;
+        for (double[] v : vectors) if (v != null) count++;
+        this.featured = count;
+    }
+
+    /**
+     * Returns the snapshot attached to a graph, taking it on first use or
+     * after the graph changed.
+     */
+    public static FeatureSnapshot of(Graph graph) {
+        synchronized (ATTACHED) {
+            FeatureSnapshot snapshot = ATTACHED.get(graph);
+            if (snapshot != null && snapshot.version == graph.getVersion()) return snapshot;
+        }
+        long version = graph.getVersion();
+        List<Vertex> vertices = graph.getVertices();
+        double[][] vectors = new double[vertices.size()][];
+        for (int i = 0; i < vectors.length; i++) {
+            double[] features = vertices.get(i).getFeatures();
+            if (features != null) vectors[i] = features.clone();
+        }
+        GraphStats stats = graph.getStats();
+        int[] degrees = new int[Math.max(stats.degreeLimit(), 1)];
+        for (int degree = 0; degree < stats.degreeLimit(); degree++) degrees[degree] = stats.degreeCount(degree);
+        FeatureSnapshot snapshot = new FeatureSnapshot(vectors, degrees, version);
+        ATTACHED.put(graph, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Returns the snapshot attached to an indexed graph, taking it on first use.
+     * Degrees are counted the way the equivalent ImageGraph stores its edges:
+     * a link counts once per passable endpoint, and never between two obstacles.
+     */
+    public static FeatureSnapshot of(IndexedGraph graph) {
+        FeatureSnapshot snapshot = ATTACHED.get(graph);
+        if (snapshot != null) return snapshot;
+        double[][] vectors = new double[graph.getVertexCount()][];
+        int[] degrees = new int[1];
+        for (int id = 0; id < vectors.length; id++) {
+            vectors[id] = graph.getFeatures(id);
+            int degree = 0;
+            for (int i = 0; i < graph.getDegree(id); i++) {
+                if (!graph.isObstacle(graph.getNeighbor(id, i))) degree++;
+                if (!graph.isObstacle(id)) degree++;
+            }
+            degrees = count(degrees, degree);
+        }
+        snapshot = new FeatureSnapshot(vectors, degrees, 0);
+        // Taken outside the lock; if another thread attached one meanwhile, use that
+        FeatureSnapshot attached = ATTACHED.putIfAbsent(graph, snapshot);
+        return attached != null ? attached : snapshot;
+    }
+
+    private static int[] count(int[] counts, int degree) {
+        if (degree >= counts.length) counts = Arrays.copyOf(counts, Math.max(degree + 1, counts.length * 2));
+        counts[degree]++;
+        return counts;
+    }
+
+    // --- Accessors ---
+
+    /** @return Number of vertices, with or without features */
+    public int size() { return vectors.length; }
+
+    /** @return Number of vertices that have features */
+    public int featuredCount() { return featured; }
+
+    /**
+     * @return Features of the i-th vertex, or null; callers must not modify them
+     */
+    double[] vector(int i) { return vectors[i]; }
+
+    /** @return Number of vertices with the given degree */
+    public int degreeCount(int degree) { return degree < degreeCounts.length ? degreeCounts[degree] : 0; }
+
+    /** @return One past the highest degree that may have vertices */
+    public int degreeLimit() { return degreeCounts.length; }
+
+    /**
+     * @return Vertices per degree; callers must not modify it
+     */
+    int[] degreeCounts() { return degreeCounts; }
+
+    /**
+     * Nearest-feature index over the snapshot's vectors, built on first use.
+     */
+    public synchronized FeatureIndex getIndex() {
+        if (index == null) index = FeatureIndex.build(Arrays.asList(vectors));
+        return index;
+    }
+}
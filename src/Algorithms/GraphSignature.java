@@ -0,0 +1,254 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Graph.DistanceKernels;
+import Graph.GraphStats;
+import Graph.ImageGraph;
+import Graph.IntegralImage;
+import Graph.Vertex;
+import java.util.*;
+
+/**
+ * Fixed-length summary of an image graph for quick candidate lookups.
+ * Graphs with similar signatures tend to score well in SimilarityDetector,
+ * so a library can shortlist references by signature distance and run the
+ * full comparison on the shortlist only.
+ *
+ * <p>Layout (every value lies in [0, 1]):
+ * <ul>
+ *   <li>mean and standard deviation of the region colours (3 + 3)</li>
+ *   <li>mean region colour of each cell of a GRID x GRID split of the image (3 per cell)</li>
+ *   <li>degree histogram, as fractions of all regions (MAX_DEGREE + 1)</li>
+ *   <li>obstacle fraction (1)</li>
+ * </ul>
+ *
+ * <p>Alongside the vector, a signature keeps the cheap global descriptors the
+ * similarity cascade screens pairs with: a joint colour histogram of the
+ * region features, the raw degree counts and a 64-bit perceptual hash of the
+ * downscaled image.
+ *
+ * <p>Signatures attached to a graph are recomputed when its version changes.
+ */
+public class GraphSignature {
+    /** Cells per side of the spatial pooling grid */
+    public static final int GRID = 4;
+    /** Highest degree an ImageGraph region can have: 4 neighbours, 2 edges each */
+    public static final int MAX_DEGREE = 8;
+    /** Number of values in a signature */
+    public static final int LENGTH = 6 + GRID * GRID * 3 + MAX_DEGREE + 1 + 1;
+
+    /** Levels per colour channel in the joint colour histogram */
+    public static final int COLOR_LEVELS = 4;
+    /** Side of the grey thumbnail the perceptual hash is taken from */
+    public static final int HASH_THUMBNAIL = 32;
+
+    private static final double COLOR_SCALE = 255.0;
+    private static final int HASH_FREQUENCIES = 8;   // 8 x 8 lowest DCT frequencies = 64 bits
+
+    /** Signatures attached to graphs; entries go away with their graph */
+    private static final Map<ImageGraph, GraphSignature> ATTACHED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final float[] values;
+    private final float[] colorHistogram;   // Fraction of regions per joint colour bin
+    private final int[] degreeCounts;       // Regions per degree, MAX_DEGREE and above together
+    private final int vertexCount;
+    private final long perceptualHash;
+    private final long version;             // Graph version the signature describes
+
+    private GraphSignature(float[] values, float[] colorHistogram, int[] degreeCounts, int vertexCount,
+                           long perceptualHash, long version) {
+        this.values = values;
+        this.colorHistogram = colorHistogram;
+        this.degreeCounts = degreeCounts;
+        this.vertexCount = vertexCount;
+        this.perceptualHash = perceptualHash;
+        this.version = version;
+    }
+
+    /**
+     * Returns the signature of an image graph, computing and attaching it on
+     * first use or after the graph changed.
+     */
+    public static GraphSignature of(ImageGraph graph) {
+        synchronized (ATTACHED) {
+            GraphSignature signature = ATTACHED.get(graph);
+            if (signature != null && signature.version == graph.getVersion()) return signature;
+        }
+        GraphSignature signature = compute(graph);
+        ATTACHED.put(graph, signature);
+        return signature;
+    }
+
+    private static GraphSignature compute(ImageGraph graph) {
+        long version = graph.getVersion();
+        List<Vertex> vertices = graph.getVertices();
+        int width = graph.getImage().getWidth(), height = graph.getImage().getHeight();
+        double[] sum = new double[3], sumSquares = new double[3];
+        double[] cellSums = new double[GRID * GRID * 3];
+        int[] cellCounts = new int[GRID * GRID];
+        int[] degrees = new int[MAX_DEGREE + 1];
+        float[] histogram = new float[COLOR_LEVELS * COLOR_LEVELS * COLOR_LEVELS];
+        int obstacles = 0, colored = 0;
+
+        for (Vertex v : vertices) {
+            degrees[Math.min(v.getEdges().size(), MAX_DEGREE)]++;
+            if (v.isObstacle()) obstacles++;
+            double[] f = v.getFeatures();
+            if (f == null) continue;
+            colored++;
+            int cell = Math.min(v.getY() * GRID / height, GRID - 1) * GRID
+                     + Math.min(v.getX() * GRID / width, GRID - 1);
+            cellCounts[cell]++;
+            histogram[colorBin(f)]++;
+            for (int c = 0; c < 3; c++) {
+                sum[c] += f[c];
+                sumSquares[c] += f[c] * f[c];
+                cellSums[cell * 3 + c] += f[c];
+            }
+        }
+
+        float[] values = new float[LENGTH];
+        int i = 0;
+        for (int c = 0; c < 3; c++) {
+            values[i++] = (float) (colored == 0 ? 0 : sum[c] / colored / COLOR_SCALE);
+        }
+        for (int c = 0; c < 3; c++) {
+            double mean = colored == 0 ? 0 : sum[c] / colored;
+            double variance = colored == 0 ? 0 : Math.max(0, sumSquares[c] / colored - mean * mean);
+            values[i++] = (float) (Math.sqrt(variance) / COLOR_SCALE);
+        }
+        for (int cell = 0; cell < GRID * GRID; cell++) {
+            for (int c = 0; c < 3; c++) {
+                values[i++] = (float) (cellCounts[cell] == 0 ? 0 : cellSums[cell * 3 + c] / cellCounts[cell] / COLOR_SCALE);
+            }
+        }
+        for (int degree = 0; degree <= MAX_DEGREE; degree++) {
+            values[i++] = vertices.isEmpty() ? 0 : (float) degrees[degree] / vertices.size();
+        }
+        values[i] = vertices.isEmpty() ? 0 : (float) obstacles / vertices.size();
+
+        for (int bin = 0; bin < histogram.length; bin++) {
+            if (colored > 0) histogram[bin] /= colored;
+        }
+        return new GraphSignature(values, histogram, degrees, vertices.size(),
+                                  perceptualHash(graph.getIntegralImage()), version);
+    }
+
+    private static int colorBin(double[] f) {
+        int bin = 0;
+        for (int c = 0; c < 3; c++) {
+            int level = (int) (f[c] / (COLOR_SCALE + 1) * COLOR_LEVELS);
+            bin = bin * COLOR_LEVELS + Math.max(0, Math.min(level, COLOR_LEVELS - 1));
+        }
+        return bin;
+    }
+
+    /**
+     * DCT perceptual hash: the image is shrunk to a grey thumbnail, and each
+     * bit tells whether one of the 64 lowest DCT frequencies lies above their
+     * median. Resizing, recompression and small colour shifts leave most bits
+     * unchanged.
+     */
+    static long perceptualHash(IntegralImage integral) {
+        int n = HASH_THUMBNAIL;
+        double[][] grey = new double[n][n];
+        for (int row = 0; row < n; row++) {
+            int y0 = row * integral.getHeight() / n, y1 = Math.max(y0 + 1, (row + 1) * integral.getHeight() / n);
+            for (int col = 0; col < n; col++) {
+                int x0 = col * integral.getWidth() / n, x1 = Math.max(x0 + 1, (col + 1) * integral.getWidth() / n);
+                double[] rgb = integral.meanColor(x0, y0, x1, y1);
+                grey[row][col] = 0.299 * rgb[0] + 0.587 * rgb[1] + 0.114 * rgb[2];
+            }
+        }
+
+        // Only the lowest frequencies are needed, so the DCT is a pair of small products
+        double[][] cosines = new double[HASH_FREQUENCIES][n];
+        for (int u = 0; u < HASH_FREQUENCIES; u++) {
+            for (int x = 0; x < n; x++) cosines[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2 * n));
+        }
+        double[][] rows = new double[n][HASH_FREQUENCIES];
+        for (int y = 0; y < n; y++) {
+            for (int u = 0; u < HASH_FREQUENCIES; u++) {
+                double sum = 0;
+                for (int x = 0; x < n; x++) sum += grey[y][x] * cosines[u][x];
+                rows[y][u] = sum;
+            }
+        }
+        double[] coefficients = new double[HASH_FREQUENCIES * HASH_FREQUENCIES];
+        for (int v = 0; v < HASH_FREQUENCIES; v++) {
+            for (int u = 0; u < HASH_FREQUENCIES; u++) {
+                double sum = 0;
+                for (int y = 0; y < n; y++) sum += rows[y][u] * cosines[v][y];
+                coefficients[v * HASH_FREQUENCIES + u] = sum;
+            }
+        }
+
+        // The DC term only measures brightness, so it is left out of the median
+        double[] sorted = Arrays.copyOfRange(coefficients, 1, coefficients.length);
+        Arrays.sort(sorted);
+        double median = sorted[sorted.length / 2];
+        long hash = 0;
+        for (int i = 0; i < coefficients.length; i++) {
+            if (coefficients[i] > median) hash |= 1L << i;
+        }
+        return hash;
+    }
+
+    // --- Key Calculations ---
+
+    /**
+     * Euclidean distance between two signatures (0 = identical).
+     */
+    public double distance(GraphSignature other) {
+        return Math.sqrt(distanceSquared(values, other.values));
+    }
+
+    /**
+     * Histogram intersection of the joint colour histograms (1 = same colour mix).
+     */
+    public double colorSimilarity(GraphSignature other) {
+        double intersection = 0;
+        for (int bin = 0; bin < colorHistogram.length; bin++) {
+            intersection += Math.min(colorHistogram[bin], other.colorHistogram[bin]);
+        }
+        return intersection;
+    }
+
+    /**
+     * Degree histogram intersection over the combined vertex count (0-0.5),
+     * the same measure as SimilarityDetector's structural similarity.
+     */
+    public double structuralSimilarity(GraphSignature other) {
+        return GraphStats.degreeOverlap(degreeCounts, vertexCount, other.degreeCounts, other.vertexCount);
+    }
+
+    /**
+     * Number of differing perceptual hash bits (0 = look alike, 64 = opposite).
+     */
+    public int hashDistance(GraphSignature other) {
+        return Long.bitCount(perceptualHash ^ other.perceptualHash);
+    }
+
+    static double distanceSquared(float[] a, float[] b) {
+        return DistanceKernels.squaredDistance(a, 0, b, 0, a.length);
+    }
+
+    // --- Accessors ---
+    public int length() { return values.length; }
+    public float get(int index) { return values[index]; }
+    public float[] toArray() { return values.clone(); }
+    public long getPerceptualHash() { return perceptualHash; }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof GraphSignature && Arrays.equals(values, ((GraphSignature) obj).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+}
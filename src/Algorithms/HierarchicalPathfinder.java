@@ -0,0 +1,118 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Algorithms.Pathfinder.IndexedPath;
+import Algorithms.Pathfinder.PathResult;
+import Graph.ImplicitGridGraph;
+import Graph.RegionPyramid;
+import java.util.*;
+
+/**
+ * Hierarchical A* (HPA*-style) over a region pyramid.
+ * Plans on the coarsest level first, then refines level by level, each time
+ * searching only inside a corridor around the path found one level up.
+ *
+ * <p>Planning starts at the coarsest level where the endpoints lie in
+ * different cells. Coarse levels never hide a passage, so a failed coarse
+ * plan proves there is no path. A corridor that turns out too narrow at a finer level is widened
+ * once, and the level is then searched in full. Paths are near-optimal: the
+ * corridor can exclude a slightly cheaper detour.
+ */
+public class HierarchicalPathfinder {
+    /** Coarse cells around the coarse path that stay inside the corridor */
+    private static final int CORRIDOR_RADIUS = 2;
+
+    /**
+     * Finds a path between two finest-level regions.
+     * @param pyramid Region pyramid to search
+     * @param start Starting region id at level 0
+     * @param end Target region id at level 0
+     * @return PathResult with the level-0 path; explored lists level-0 regions only,
+     *         while the metrics add up the searches of every level
+     */
+    public static PathResult aStar(RegionPyramid pyramid, int start, int end) {
+        long startTime = System.nanoTime();
+        SearchMetrics metrics = new SearchMetrics();
+
+        int levels = pyramid.getLevelCount();
+        int[] starts = new int[levels], ends = new int[levels];
+        starts[0] = start;
+        ends[0] = end;
+        for (int level = 1; level < levels; level++) {
+            starts[level] = pyramid.parentOf(level - 1, starts[level - 1]);
+            ends[level] = pyramid.parentOf(level - 1, ends[level - 1]);
+        }
+
+        // Above the highest level where the endpoints still lie in different
+        // cells there is nothing to plan, and an empty plan there would read as
+        // "no route"; endpoints in one level-0 region are searched directly
+        int top = 0;
+        while (top + 1 < levels && starts[top + 1] != ends[top + 1]) top++;
+
+        // Plan at that level, then refine downwards
+        int level = top;
+        IndexedPath plan = Pathfinder.searchIndexed(pyramid.getLevel(top), starts[top], ends[top], true, null);
+        metrics.add(plan.metrics);
+        while (level > 0 && plan.path.length > 0) {
+            level--;
+            plan = refine(pyramid, level, plan.path, starts[level], ends[level], metrics);
+        }
+
+        if (level > 0) {
+            // No coarse route means no route at all
+            plan = new IndexedPath(new int[0], new int[0], Double.POSITIVE_INFINITY, metrics);
+        } else {
+            plan = new IndexedPath(plan.path, plan.explored, plan.totalCost, metrics);
+        }
+        return Pathfinder.toPathResult(pyramid.getLevel(0), plan, startTime);
+    }
+
+    /**
+     * Searches one level inside the corridor of the path found one level up.
+     */
+    private static IndexedPath refine(RegionPyramid pyramid, int level, int[] coarsePath, int start, int end,
+                                      SearchMetrics metrics) {
+        ImplicitGridGraph fine = pyramid.getLevel(level);
+        IndexedPath result = null;
+        for (int radius = CORRIDOR_RADIUS; radius <= CORRIDOR_RADIUS + 1; radius++) {
+            BitSet corridor = corridor(pyramid, level, coarsePath, radius);
+            result = Pathfinder.searchIndexed(fine, start, end, true, corridor);
+            metrics.add(result.metrics);
+            if (result.path.length > 0) return result;
+        }
+        result = Pathfinder.searchIndexed(fine, start, end, true, null);
+        metrics.add(result.metrics);
+        return result;
+    }
+
+    /**
+     * Marks every fine region whose parent lies within radius cells of the coarse path.
+     */
+    private static BitSet corridor(RegionPyramid pyramid, int level, int[] coarsePath, int radius) {
+        ImplicitGridGraph fine = pyramid.getLevel(level);
+        ImplicitGridGraph coarse = pyramid.getLevel(level + 1);
+        BitSet parents = new BitSet(coarse.getVertexCount());
+        for (int id : coarsePath) {
+            int col = id % coarse.getColumns(), row = id / coarse.getColumns();
+            for (int r = Math.max(0, row - radius); r <= Math.min(coarse.getRows() - 1, row + radius); r++) {
+                for (int c = Math.max(0, col - radius); c <= Math.min(coarse.getColumns() - 1, col + radius); c++) {
+                    parents.set(r * coarse.getColumns() + c);
+                }
+            }
+        }
+
+        BitSet corridor = new BitSet(fine.getVertexCount());
+        for (int parent = parents.nextSetBit(0); parent >= 0; parent = parents.nextSetBit(parent + 1)) {
+            int col = (parent % coarse.getColumns()) * 2, row = (parent / coarse.getColumns()) * 2;
+            for (int r = row; r < Math.min(row + 2, fine.getRows()); r++) {
+                for (int c = col; c < Math.min(col + 2, fine.getColumns()); c++) {
+                    corridor.set(r * fine.getColumns() + c);
+                }
+            }
+        }
+        return corridor;
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Algorithms.Pathfinder.PathResult;
+import Graph.Edge;
+import Graph.Vertex;
+import java.util.*;
+
+/**
+ * Incremental shortest-path planner (D* Lite).
+ * The search runs backwards from the goal and keeps its distance estimates
+ * between calls. When obstacles or edges change, only the vertices whose
+ * distance to the goal is affected are re-expanded, so re-planning after a
+ * local change costs time proportional to the change rather than the graph.
+ *
+ * <p>Typical use: plan once, flip regions with Vertex.setObstacle (or edit
+ * edges with Graph.removeEdge/addEdge), report each change with
+ * {@link #vertexChanged(Vertex)} or {@link #edgesChanged(Vertex, Vertex)}, then
+ * plan again. Obstacles are handled exactly as in Pathfinder: a search never
+ * enters one, though the start itself may be one. The graph must be
+ * undirected, as ImageGraph is.
+ */
+public class IncrementalPlanner {
+    private final Vertex goal;
+    private Vertex start;
+    private double keyModifier;     // D* Lite km: heuristic drift after the start moved
+
+    private final Map<Vertex, Double> g = new HashMap<>();      // Settled distance to goal
+    private final Map<Vertex, Double> rhs = new HashMap<>();    // One-step lookahead distance
+    private final Map<Vertex, QueueEntry> queued = new HashMap<>(); // Live queue entry per vertex
+    private final PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+    private List<Vertex> explored = new ArrayList<>();
+    private SearchMetrics metrics = new SearchMetrics();        // Work since the last plan() returned
+
+    /**
+     * @param start Vertex the path starts from
+     * @param goal Vertex the path leads to
+     */
+    public IncrementalPlanner(Vertex start, Vertex goal) {
+        this.start = start;
+        this.goal = goal;
+        rhs.put(goal, 0.0);
+        enqueue(goal);
+    }
+
+    /**
+     * Brings the search up to date and returns the current shortest path.
+     * The first call does a full search; later calls repair only what changed.
+     * @return PathResult; explored holds the vertices expanded by this call only
+     */
+    public PathResult plan() {
+        long startTime = System.nanoTime();
+        explored = new ArrayList<>();
+        computeShortestPath();
+
+        List<Vertex> path = new ArrayList<>();
+        double cost = Double.POSITIVE_INFINITY;
+        if (!start.equals(goal) && g(start) < Double.POSITIVE_INFINITY) {
+            // Walk downhill through the distance field
+            cost = 0.0;
+            path.add(start);
+            Vertex current = start;
+            while (!current.equals(goal)) {
+                Vertex next = null;
+                double best = Double.POSITIVE_INFINITY, step = 0.0;
+                for (Edge edge : current.getEdges()) {
+                    Vertex neighbor = edge.getDestination();
+                    if (neighbor.isObstacle()) continue;
+                    double through = edge.getWeight() + g(neighbor);
+                    if (through < best) {
+                        best = through;
+                        next = neighbor;
+                        step = edge.getWeight();
+                    }
+                }
+                if (next == null) { // Cannot happen once the search is consistent
+                    path.clear();
+                    cost = Double.POSITIVE_INFINITY;
+                    break;
+                }
+                cost += step;
+                path.add(next);
+                current = next;
+            }
+        }
+        // Change notifications since the last call count towards this one
+        SearchMetrics done = metrics;
+        metrics = new SearchMetrics();
+        done.settled = explored.size();
+        done.timeNanos = System.nanoTime() - startTime;
+        return new PathResult(path, explored, cost, done);
+    }
+
+    // --- Change Notifications ---
+
+    /**
+     * Reports that a vertex's obstacle flag changed. This changes the cost of
+     * every edge into it.
+     */
+    public void vertexChanged(Vertex vertex) {
+        updateVertex(vertex);
+        for (Edge edge : vertex.getEdges()) updateVertex(edge.getDestination());
+    }
+
+    /**
+     * Reports that edges between two vertices were added, removed or reweighted.
+     */
+    public void edgesChanged(Vertex a, Vertex b) {
+        updateVertex(a);
+        updateVertex(b);
+    }
+
+    /**
+     * Moves the start (e.g. after travelling part of the path) without
+     * invalidating the search; the goal stays fixed.
+     */
+    public void moveStart(Vertex newStart) {
+        Vertex previous = start;
+        keyModifier += heuristic(previous, newStart);
+        start = newStart;
+        // Obstacle starts are the exception to the no-obstacle rule
+        if (previous.isObstacle()) updateVertex(previous);
+        if (newStart.isObstacle()) updateVertex(newStart);
+    }
+
+    // --- D* Lite Core ---
+
+    private void computeShortestPath() {
+        while (true) {
+            QueueEntry top = peek();
+            if (top == null) break;
+            double[] startKey = key(start);
+            if (compare(top.k1, top.k2, startKey[0], startKey[1]) >= 0 && rhs(start) == g(start)) break;
+
+            queue.poll();
+            metrics.pops++;
+            queued.remove(top.vertex);
+            Vertex u = top.vertex;
+            double[] current = key(u);
+            if (compare(top.k1, top.k2, current[0], current[1]) < 0) {
+                enqueue(u); // Key grew since it was queued
+            } else if (g(u) > rhs(u)) {
+                g.put(u, rhs(u));
+                explored.add(u);
+                for (Edge edge : u.getEdges()) updateVertex(edge.getDestination());
+            } else {
+                g.put(u, Double.POSITIVE_INFINITY);
+                explored.add(u);
+                updateVertex(u);
+                for (Edge edge : u.getEdges()) updateVertex(edge.getDestination());
+            }
+        }
+    }
+
+    /**
+     * Recomputes a vertex's lookahead distance and queues it if it is inconsistent.
+     */
+    private void updateVertex(Vertex u) {
+        if (!u.equals(goal)) {
+            double best = Double.POSITIVE_INFINITY;
+            // Only the start may be an obstacle on a path, so other obstacles stay unreached
+            if (!u.isObstacle() || u.equals(start)) {
+                for (Edge edge : u.getEdges()) {
+                    Vertex s = edge.getDestination();
+                    if (s.isObstacle()) continue;
+                    best = Math.min(best, edge.getWeight() + g(s));
+                }
+            }
+            if (best != rhs(u)) metrics.relaxations++;
+            rhs.put(u, best);
+        }
+        queued.remove(u); // Any queued entry becomes stale
+        if (g(u) != rhs(u)) enqueue(u);
+    }
+
+    private void enqueue(Vertex u) {
+        double[] k = key(u);
+        QueueEntry entry = new QueueEntry(u, k[0], k[1]);
+        queued.put(u, entry);
+        queue.add(entry);
+        metrics.pushes++;
+    }
+
+    /**
+     * Top live entry, discarding stale ones.
+     */
+    private QueueEntry peek() {
+        while (!queue.isEmpty() && queued.get(queue.peek().vertex) != queue.peek()) {
+            queue.poll();
+            metrics.pops++;
+            metrics.stalePops++;
+        }
+        return queue.peek();
+    }
+
+    private double[] key(Vertex s) {
+        double m = Math.min(g(s), rhs(s));
+        return new double[] { m + heuristic(start, s) + keyModifier, m };
+    }
+
+    private double g(Vertex v) { return g.getOrDefault(v, Double.POSITIVE_INFINITY); }
+    private double rhs(Vertex v) { return rhs.getOrDefault(v, Double.POSITIVE_INFINITY); }
+
+    private static double heuristic(Vertex a, Vertex b) {
+        return a.distanceTo(b);
+    }
+
+    private static int compare(double a1, double a2, double b1, double b2) {
+        int c = Double.compare(a1, b1);
+        return c != 0 ? c : Double.compare(a2, b2);
+    }
+
+    /**
+     * Queue entry with a two-part D* Lite key.
+     */
+    private static class QueueEntry implements Comparable<QueueEntry> {
+        final Vertex vertex;
+        final double k1, k2;
+
+        QueueEntry(Vertex vertex, double k1, double k2) {
+            this.vertex = vertex;
+            this.k1 = k1;
+            this.k2 = k2;
+        }
+
+        @Override
+        public int compareTo(QueueEntry other) {
+            return compare(k1, k2, other.k1, other.k2);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import java.util.Arrays;
+
+/**
+ * Indexed d-ary min-heap over int ids with true decrease-key.
+ * Each id is in the heap at most once, and its position is tracked so a key
+ * can be lowered in O(log n) without duplicate entries or O(n) lookups.
+ */
+public class IndexedHeap {
+    private static final int ARITY = 4; // Shallower than binary, still cache-friendly
+
+    private int[] heap;         // Ids in heap order
+    private int[] positions;    // Heap slot of each id, -1 if absent
+    private double[] keys;      // Key of each id
+    private int size;
+
+    /**
+     * @param capacity Ids must lie in [0, capacity)
+     */
+    public IndexedHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Grows the heap so ids up to capacity - 1 can be stored.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= positions.length) return;
+        int old = positions.length;
+        heap = Arrays.copyOf(heap, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, old, capacity, -1);
+    }
+
+    /**
+     * Inserts an id, or lowers its key if it is already queued with a larger one.
+     * @return true if the heap changed
+     */
+    public boolean push(int id, double key) {
+        int slot = positions[id];
+        if (slot == -1) {
+            keys[id] = key;
+            heap[size] = id;
+            positions[id] = size;
+            siftUp(size++);
+            return true;
+        }
+        if (key < keys[id]) {
+            keys[id] = key;
+            siftUp(slot);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes and returns the id with the smallest key.
+     */
+    public int pop() {
+        int top = heap[0];
+        positions[top] = -1;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Empties the heap; only the ids still queued are touched.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) positions[heap[i]] = -1;
+        size = 0;
+    }
+
+    // --- Accessors ---
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+    public boolean contains(int id) { return positions[id] != -1; }
+    public double peekKey() { return keys[heap[0]]; }
+    public double getKey(int id) { return keys[id]; }
+
+    // --- Heap Maintenance ---
+
+    private void siftUp(int slot) {
+        int id = heap[slot];
+        double key = keys[id];
+        while (slot > 0) {
+            int parent = (slot - 1) / ARITY;
+            if (keys[heap[parent]] <= key) break;
+            heap[slot] = heap[parent];
+            positions[heap[slot]] = slot;
+            slot = parent;
+        }
+        heap[slot] = id;
+        positions[id] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int id = heap[slot];
+        double key = keys[id];
+        while (true) {
+            int first = slot * ARITY + 1;
+            if (first >= size) break;
+            int best = first;
+            for (int c = first + 1; c < Math.min(first + ARITY, size); c++) {
+                if (keys[heap[c]] < keys[heap[best]]) best = c;
+            }
+            if (keys[heap[best]] >= key) break;
+            heap[slot] = heap[best];
+            positions[heap[slot]] = slot;
+            slot = best;
+        }
+        heap[slot] = id;
+        positions[id] = slot;
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Graph.ImageGraph;
+import Graph.IndexedGraph;
+import Graph.Vertex;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Landmark (ALT) preprocessing for repeated queries on one graph.
+ * A handful of landmark regions each get a full Dijkstra, and by the triangle
+ * inequality |d(L, t) - d(L, v)| is then a lower bound on d(v, t) for every
+ * landmark L. Unlike the Euclidean heuristic, this bound already includes the
+ * colour term of the edge weights, so A* heads almost straight for the target.
+ *
+ * <p>Edges are symmetric, so one distance array per landmark serves as both
+ * the distance to and from it. Storage is one double per region and landmark.
+ *
+ * <p>Landmarks describe the graph as it was when they were built. Those
+ * attached to an ImageGraph are rebuilt on the next {@link #of(ImageGraph)}
+ * once its version moves on; for an indexed graph, call {@link #detach(Object)}
+ * after editing it.
+ */
+public class Landmarks implements SearchEngine.Heuristic {
+    /** Landmarks picked when no count is given */
+    public static final int DEFAULT_COUNT = 8;
+
+    /** Landmarks attached to graphs; entries go away with their graph */
+    private static final Map<Object, Landmarks> ATTACHED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final int regionSize;
+    private final int columns;
+    private final int vertexCount;
+    private final int[] landmarks;
+    private final double[][] distances;  // distances[i][v] = d(landmarks[i], v), infinity if unreachable
+    private final long version;          // ImageGraph version they describe, -1 for indexed graphs
+
+    private Landmarks(IndexedGraph graph, int[] landmarks, double[][] distances, long version) {
+        this.regionSize = graph.getRegionSize();
+        this.columns = graph.getColumns();
+        this.vertexCount = graph.getVertexCount();
+        this.landmarks = landmarks;
+        this.distances = distances;
+        this.version = version;
+    }
+
+    // --- Construction ---
+
+    /**
+     * Picks landmarks and runs one Dijkstra per landmark in parallel.
+     * @param graph Graph to preprocess
+     * @param count Number of landmarks (fewer if the graph has few passable regions)
+     * @param parallelism Number of landmark searches run at once
+     */
+    public static Landmarks build(IndexedGraph graph, int count, int parallelism) {
+        return build(graph, count, parallelism, -1);
+    }
+
+    private static Landmarks build(IndexedGraph graph, int count, int parallelism, long version) {
+        int[] chosen = selectPlanar(graph, count);
+        double[][] distances = new double[chosen.length][];
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.submit(() -> IntStream.range(0, chosen.length).parallel().forEach(i -> {
+                SearchEngine engine = new SearchEngine(graph.getVertexCount());
+                engine.search(graph, chosen[i], -1, (SearchEngine.Heuristic) null, null);
+                double[] row = new double[graph.getVertexCount()];
+                for (int v = 0; v < row.length; v++) row[v] = engine.getDistance(v);
+                distances[i] = row;
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+        return new Landmarks(graph, chosen, distances, version);
+    }
+
+    /**
+     * Returns the landmarks attached to an indexed graph, building and attaching
+     * them on first use. They are built outside the lock, so concurrent first
+     * calls may both build; the first to attach wins.
+     */
+    public static Landmarks of(IndexedGraph graph) {
+        Landmarks landmarks = ATTACHED.get(graph);
+        if (landmarks != null) return landmarks;
+        landmarks = build(graph, DEFAULT_COUNT, Runtime.getRuntime().availableProcessors());
+        Landmarks attached = ATTACHED.putIfAbsent(graph, landmarks);
+        return attached != null ? attached : landmarks;
+    }
+
+    /**
+     * Returns the landmarks attached to an image graph, building and attaching
+     * them on first use or after the graph changed. They are computed on a
+     * snapshot of its regions, which has the same edges and weights.
+     */
+    public static Landmarks of(ImageGraph graph) {
+        synchronized (ATTACHED) {
+            Landmarks landmarks = ATTACHED.get(graph);
+            if (landmarks != null && landmarks.version == graph.getVersion()) return landmarks;
+        }
+        long version = graph.getVersion();
+        Landmarks landmarks = build(graph.snapshot(), DEFAULT_COUNT, Runtime.getRuntime().availableProcessors(), version);
+        ATTACHED.put(graph, landmarks);
+        return landmarks;
+    }
+
+    /**
+     * Drops the landmarks attached to a graph, e.g. after it was edited.
+     */
+    public static void detach(Object graph) {
+        ATTACHED.remove(graph);
+    }
+
+    /**
+     * Planar selection: splits the image into equal angular sectors around its
+     * centre and takes the passable region farthest from the centre in each.
+     * Landmarks on the rim give the tightest bounds for routes across the image.
+     */
+    private static int[] selectPlanar(IndexedGraph graph, int count) {
+        double cx = graph.getImageWidth() / 2.0, cy = graph.getImageHeight() / 2.0;
+        int[] best = new int[count];
+        double[] bestRadius = new double[count];
+        Arrays.fill(best, -1);
+
+        for (int v = 0; v < graph.getVertexCount(); v++) {
+            if (graph.isObstacle(v)) continue;
+            double dx = graph.getX(v) - cx, dy = graph.getY(v) - cy;
+            int sector = (int) ((Math.atan2(dy, dx) + Math.PI) / (2 * Math.PI) * count) % count;
+            double radius = dx * dx + dy * dy;
+            if (best[sector] == -1 || radius > bestRadius[sector]) {
+                best[sector] = v;
+                bestRadius[sector] = radius;
+            }
+        }
+        return Arrays.stream(best).filter(v -> v != -1).toArray();
+    }
+
+    // --- Heuristic ---
+
+    /**
+     * Lower bound on d(vertex, target): the best landmark bound, or the
+     * Euclidean distance if that is larger.
+     */
+    @Override
+    public double estimate(IndexedGraph graph, int vertex, int target) {
+        return Math.max(graph.distance(vertex, target), landmarkBound(vertex, target));
+    }
+
+    /**
+     * Vertex version for ImageGraph searches; regions are located by their coordinates.
+     */
+    public double estimate(Vertex vertex, Vertex target) {
+        double euclidean = Math.hypot(vertex.getX() - target.getX(), vertex.getY() - target.getY());
+        int v = idOf(vertex), t = idOf(target);
+        return v == -1 || t == -1 ? euclidean : Math.max(euclidean, landmarkBound(v, t));
+    }
+
+    private double landmarkBound(int vertex, int target) {
+        double bound = 0.0;
+        for (double[] row : distances) {
+            double dv = row[vertex], dt = row[target];
+            // A landmark that cannot reach both regions says nothing about them
+            if (dv == Double.POSITIVE_INFINITY || dt == Double.POSITIVE_INFINITY) continue;
+            bound = Math.max(bound, Math.abs(dt - dv));
+        }
+        return bound;
+    }
+
+    private int idOf(Vertex vertex) {
+        if (vertex.getX() % regionSize != 0 || vertex.getY() % regionSize != 0) return -1;
+        int id = (vertex.getY() / regionSize) * columns + vertex.getX() / regionSize;
+        return vertex.getX() / regionSize < columns && id < vertexCount ? id : -1;
+    }
+
+    // --- Accessors ---
+    public int getCount() { return landmarks.length; }
+    public int getLandmark(int index) { return landmarks[index]; }
+    public double getDistance(int index, int vertex) { return distances[index][vertex]; }
+}
@@ -0,0 +1,247 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Algorithms.Pathfinder.Algorithm;
+import Algorithms.Pathfinder.PathResult;
+import Graph.Edge;
+import Graph.Graph;
+import Graph.Vertex;
+import java.util.*;
+
+/**
+ * Bounded LRU cache of path results.
+ * Entries are keyed by graph, graph content version, endpoints and algorithm,
+ * so any edit to the graph (edges, vertices, obstacle flags) makes its old
+ * entries unreachable; they are dropped the next time the graph is queried.
+ *
+ * <p>Every cached algorithm is exact, and any stretch of a shortest path is
+ * itself a shortest path. A query whose endpoints both lie, in order, on a
+ * cached path is therefore answered from that path, with its cost summed from
+ * the stored step costs. Such results have an empty explored list.
+ *
+ * <p>Cached results are shared; callers must not modify their lists.
+ */
+public class PathCache {
+    private static final long ENTRY_OVERHEAD = 256;    // Key, entry and result objects
+    private static final long BYTES_PER_VERTEX = 64;   // List slot plus position-map node
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Vertex, Set<Entry>> entriesByVertex = new HashMap<>(); // For sub-path lookups
+    private final Map<Graph, Long> versions = new WeakHashMap<>();         // Last version seen per graph
+    private long bytes;
+
+    private long hits;
+    private long subPathHits;
+    private long misses;
+
+    /**
+     * @param maxEntries Upper bound on cached results
+     * @param maxBytes Upper bound on the estimated memory of cached results
+     */
+    public PathCache(int maxEntries, long maxBytes) {
+        if (maxEntries < 1 || maxBytes < 1) throw new IllegalArgumentException("Cache bounds must be positive");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached result for the query, or runs the search and caches it.
+     * @param graph Graph that start and end belong to
+     * @param start Starting vertex
+     * @param end Target vertex
+     * @param algorithm Search to run on a miss
+     */
+    public PathResult find(Graph graph, Vertex start, Vertex end, Algorithm algorithm) {
+        return find(graph, start, end, algorithm, null);
+    }
+
+    /**
+     * As {@link #find(Graph, Vertex, Vertex, Algorithm)}; the listener only sees
+     * searches that actually run, i.e. misses.
+     */
+    public PathResult find(Graph graph, Vertex start, Vertex end, Algorithm algorithm, SearchListener listener) {
+        long version = graph.getVersion();
+        Key key = new Key(graph, version, start, end, algorithm);
+
+        synchronized (this) {
+            dropStale(graph, version);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                return entry.result;
+            }
+            PathResult subPath = findSubPath(graph, version, start, end);
+            if (subPath != null) {
+                subPathHits++;
+                return subPath;
+            }
+            misses++;
+        }
+
+        // Search outside the lock so other queries are not held up
+        PathResult result = algorithm.run(start, end, listener);
+        synchronized (this) {
+            if (graph.getVersion() == version && !entries.containsKey(key)) add(new Entry(key, result));
+        }
+        return result;
+    }
+
+    // --- Lookup ---
+
+    /**
+     * Answers start -> end from any cached path of the same graph state that
+     * passes through start and later through end.
+     */
+    private PathResult findSubPath(Graph graph, long version, Vertex start, Vertex end) {
+        if (start.equals(end)) return null;
+        Set<Entry> candidates = entriesByVertex.get(start);
+        if (candidates == null) return null;
+
+        for (Entry entry : candidates) {
+            if (entry.key.graph != graph || entry.key.version != version) continue;
+            Integer from = entry.positions.get(start), to = entry.positions.get(end);
+            if (from == null || to == null || from >= to) continue;
+
+            entries.get(entry.key); // Touch for LRU order
+            List<Vertex> path = new ArrayList<>(entry.result.path.subList(from, to + 1));
+            double cost = 0.0; // Summed from the sub-path's own start, as a search would
+            for (int i = from + 1; i <= to; i++) cost += entry.stepCosts[i];
+            return new PathResult(path, Collections.emptyList(), cost, 0);
+        }
+        return null;
+    }
+
+    /**
+     * Evicts the entries of older versions once a graph is seen to have changed.
+     */
+    private void dropStale(Graph graph, long version) {
+        Long seen = versions.put(graph, version);
+        if (seen == null || seen == version) return;
+        List<Entry> stale = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.key.graph == graph && entry.key.version != version) stale.add(entry);
+        }
+        stale.forEach(this::remove);
+    }
+
+    // --- Storage ---
+
+    private void add(Entry entry) {
+        entries.put(entry.key, entry);
+        for (Vertex v : entry.positions.keySet()) {
+            entriesByVertex.computeIfAbsent(v, k -> new HashSet<>()).add(entry);
+        }
+        bytes += entry.bytes;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            Entry victim = eldest.next();
+            eldest.remove();
+            unindex(victim);
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.key);
+        unindex(entry);
+    }
+
+    private void unindex(Entry entry) {
+        bytes -= entry.bytes;
+        for (Vertex v : entry.positions.keySet()) {
+            Set<Entry> owners = entriesByVertex.get(v);
+            if (owners != null && owners.remove(entry) && owners.isEmpty()) entriesByVertex.remove(v);
+        }
+    }
+
+    /**
+     * Empties the cache; the counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        entriesByVertex.clear();
+        versions.clear();
+        bytes = 0;
+    }
+
+    // --- Statistics ---
+    public synchronized long getHits() { return hits; }
+    public synchronized long getSubPathHits() { return subPathHits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getEstimatedBytes() { return bytes; }
+
+    /**
+     * Query identity. Graphs are compared by identity, vertices by id.
+     */
+    private static class Key {
+        final Graph graph;
+        final long version;
+        final Vertex start, end;
+        final Algorithm algorithm;
+
+        Key(Graph graph, long version, Vertex start, Vertex end, Algorithm algorithm) {
+            this.graph = graph;
+            this.version = version;
+            this.start = start;
+            this.end = end;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            return graph == other.graph && version == other.version && algorithm == other.algorithm
+                && start.equals(other.start) && end.equals(other.end);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(graph), version, start, end, algorithm);
+        }
+    }
+
+    /**
+     * Cached result with what sub-path lookups need.
+     */
+    private static class Entry {
+        final Key key;
+        final PathResult result;
+        final Map<Vertex, Integer> positions = new HashMap<>();   // Index of each vertex on the path
+        final double[] stepCosts;                                 // Weight of the edge into each index
+        final long bytes;
+
+        Entry(Key key, PathResult result) {
+            this.key = key;
+            this.result = result;
+            List<Vertex> path = result.path;
+            stepCosts = new double[path.size()];
+            Vertex previous = null;
+            int i = 0;
+            for (Vertex v : path) {
+                positions.putIfAbsent(v, i);
+                if (previous != null) stepCosts[i] = edgeWeight(previous, v);
+                previous = v;
+                i++;
+            }
+            bytes = ENTRY_OVERHEAD + BYTES_PER_VERTEX * path.size() + 8L * result.explored.size();
+        }
+
+        /**
+         * Cheapest direct edge between consecutive path vertices, as the searches use it.
+         */
+        private static double edgeWeight(Vertex from, Vertex to) {
+            double best = Double.POSITIVE_INFINITY;
+            for (Edge edge : from.getEdges()) {
+                if (edge.getDestination().equals(to)) best = Math.min(best, edge.getWeight());
+            }
+            return best;
+        }
+    }
+}
@@ -5,33 +5,118 @@
 package Algorithms;
 
 import Graph.Edge;
+import Graph.Graph;
+import Graph.IndexedGraph;
 import Graph.Vertex;
 import java.util.*;
+import java.util.function.ToDoubleBiFunction;
 
 /**
- * Implements Dijkstra's and A* algorithms for shortest pathfinding in a graph.
- * Handles obstacles and tracks search metrics (path cost, time, explored nodes).
+ * Implements Dijkstra's and A* algorithms (one-way and bidirectional) for
+ * shortest pathfinding in a graph.
+ * Handles obstacles and tracks search metrics (path cost, time, queue and
+ * relaxation counts). Explored vertices are reported to an optional
+ * SearchListener, so searches without one pay nothing for them. Vertex
+ * queries the graph's reachability index rules out return without searching.
  */
 public class Pathfinder {
 
     /**
      * Result of a pathfinding operation, including:
      * - path: Shortest path (empty if none exists)
-     * - explored: Nodes visited during search
+     * - explored: Nodes visited during search. Vertex searches leave it empty
+     *   (pass a SearchListener such as ExploredTrace instead); indexed searches
+     *   expose a lazy view over their settle order
      * - totalCost: Sum of edge weights in the path
-     * - timeMillis: Execution time in milliseconds
+     * - timeMillis / timeNanos: Execution time
+     * - metrics: Queue and relaxation counters
      */
     public static class PathResult {
         public final List<Vertex> path;
         public final List<Vertex> explored;
         public final double totalCost;
         public final long timeMillis;
+        public final long timeNanos;
+        public final SearchMetrics metrics;
 
         public PathResult(List<Vertex> path, List<Vertex> explored, double totalCost, long timeMillis) {
+            this(path, explored, totalCost, timed(timeMillis * 1_000_000));
+        }
+
+        public PathResult(List<Vertex> path, List<Vertex> explored, double totalCost, SearchMetrics metrics) {
             this.path = path;
             this.explored = explored;
             this.totalCost = totalCost;
-            this.timeMillis = timeMillis;
+            this.metrics = metrics;
+            this.timeNanos = metrics.timeNanos;
+            this.timeMillis = metrics.timeNanos / 1_000_000;
+        }
+
+        private static SearchMetrics timed(long nanos) {
+            SearchMetrics metrics = new SearchMetrics();
+            metrics.timeNanos = nanos;
+            return metrics;
+        }
+    }
+
+    /**
+     * Exact search strategies, for callers that pick one at run time.
+     */
+    public enum Algorithm {
+        DIJKSTRA("Dijkstra's Algorithm"),
+        A_STAR("A* Algorithm"),
+        BIDIRECTIONAL_DIJKSTRA("Bidirectional Dijkstra"),
+        BIDIRECTIONAL_A_STAR("Bidirectional A*");
+
+        private final String label;
+
+        Algorithm(String label) {
+            this.label = label;
+        }
+
+        public PathResult run(Vertex start, Vertex end) {
+            return run(start, end, null);
+        }
+
+        /**
+         * @param listener Receives settled vertices, or null
+         */
+        public PathResult run(Vertex start, Vertex end, SearchListener listener) {
+            switch (this) {
+                case DIJKSTRA: return dijkstra(start, end, listener);
+                case BIDIRECTIONAL_DIJKSTRA: return bidirectionalDijkstra(start, end, listener);
+                case BIDIRECTIONAL_A_STAR: return bidirectionalAStar(start, end, listener);
+                default: return aStar(start, end, listener);
+            }
+        }
+
+        public PathResult run(IndexedGraph graph, int start, int end) {
+            return run(graph, start, end, null);
+        }
+
+        /**
+         * @param listener Receives settled region ids, or null
+         */
+        public PathResult run(IndexedGraph graph, int start, int end, SearchListener listener) {
+            boolean heuristic = this == A_STAR || this == BIDIRECTIONAL_A_STAR;
+            long startTime = System.nanoTime();
+            IndexedPath result = this == DIJKSTRA || this == A_STAR
+                ? searchIndexed(graph, start, end, heuristic ? SearchEngine.EUCLIDEAN : null, null, listener)
+                : searchBidirectional(graph, start, end, heuristic, listener);
+            return toPathResult(graph, result, startTime);
+        }
+
+        /** Display name, as shown in the UI */
+        public String getLabel() { return label; }
+
+        /**
+         * @return The algorithm with this display name, or null if there is none
+         */
+        public static Algorithm fromLabel(String label) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.label.equals(label)) return algorithm;
+            }
+            return null;
         }
     }
 
@@ -42,104 +127,473 @@ public class Pathfinder {
      * @return PathResult with path and search metrics
      */
     public static PathResult dijkstra(Vertex start, Vertex end) {
-        long startTime = System.currentTimeMillis();
+        return searchVertices(start, end, null, null);
+    }
+
+    /**
+     * Dijkstra's algorithm, reporting every settled vertex to the listener.
+     */
+    public static PathResult dijkstra(Vertex start, Vertex end, SearchListener listener) {
+        return searchVertices(start, end, null, listener);
+    }
+
+    /**
+     * A* algorithm with Euclidean heuristic.
+     * Optimizes Dijkstra by prioritizing nodes closer to the target.
+     */
+    public static PathResult aStar(Vertex start, Vertex end) {
+        return searchVertices(start, end, Pathfinder::heuristic, null);
+    }
+
+    /**
+     * A*, reporting every settled vertex to the listener.
+     */
+    public static PathResult aStar(Vertex start, Vertex end, SearchListener listener) {
+        return searchVertices(start, end, Pathfinder::heuristic, listener);
+    }
+
+    /**
+     * A* guided by landmark (ALT) lower bounds, which track the real
+     * colour-weighted costs far more closely than the Euclidean heuristic.
+     * @param landmarks Landmarks of the graph start and end belong to
+     */
+    public static PathResult aStar(Vertex start, Vertex end, Landmarks landmarks) {
+        return searchVertices(start, end, landmarks::estimate, null);
+    }
+
+    public static PathResult aStar(Vertex start, Vertex end, Landmarks landmarks, SearchListener listener) {
+        return searchVertices(start, end, landmarks::estimate, listener);
+    }
+
+    /**
+     * Shared Dijkstra/A* loop over Vertex objects.
+     * Distances are only recorded for vertices the search actually reaches, so
+     * there is no up-front pass over the component. Improved vertices are
+     * re-queued and stale entries are skipped when polled.
+     * @param heuristic Remaining-cost estimate for A*, or null for Dijkstra
+     * @param listener Receives settled vertices, or null
+     */
+    private static PathResult searchVertices(Vertex start, Vertex end,
+                                             ToDoubleBiFunction<Vertex, Vertex> heuristic,
+                                             SearchListener listener) {
+        long startTime = System.nanoTime();
+        SearchMetrics metrics = new SearchMetrics();
+        if (!mayReach(start, end)) return unreachable(metrics, startTime);
         
-        // Initialize data structures
-        Map<Vertex, Double> distances = new HashMap<>();  // Stores shortest known distances
+        Map<Vertex, Double> distances = new HashMap<>();   // Shortest known distances
         Map<Vertex, Vertex> predecessors = new HashMap<>(); // Tracks path
-        PriorityQueue<Vertex> queue = new PriorityQueue<>(Comparator.comparingDouble(distances::get));
-        List<Vertex> explored = new ArrayList<>();
+        Set<Vertex> settled = new HashSet<>();
+        PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
 
-        // Set initial distances (infinity except for start node)
-        for (Vertex v : getAllVertices(start)) {
-            distances.put(v, Double.POSITIVE_INFINITY);
-        }
         distances.put(start, 0.0);
-        queue.add(start);
+        queue.add(new QueueEntry(start, heuristic != null ? heuristic.applyAsDouble(start, end) : 0.0));
+        metrics.pushes++;
 
-        // Main algorithm loop
         while (!queue.isEmpty()) {
-            Vertex current = queue.poll();
-            explored.add(current);
+            Vertex current = queue.poll().vertex;
+            metrics.pops++;
+            if (!settled.add(current)) { // Stale entry
+                metrics.stalePops++;
+                continue;
+            }
+            metrics.settled++;
+            if (listener != null) listener.settled(current);
 
             if (current.equals(end)) break; // Early exit if target reached
 
+            double base = distances.get(current);
             for (Edge edge : current.getEdges()) {
                 Vertex neighbor = edge.getDestination();
-                if (neighbor.isObstacle()) continue; // Skip obstacles
+                if (neighbor.isObstacle() || settled.contains(neighbor)) continue; // Skip obstacles
 
-                double newDist = distances.get(current) + edge.getWeight();
-                if (newDist < distances.get(neighbor)) {
+                double newDist = base + edge.getWeight();
+                if (newDist < distances.getOrDefault(neighbor, Double.POSITIVE_INFINITY)) {
                     distances.put(neighbor, newDist);
                     predecessors.put(neighbor, current);
-                    queue.add(neighbor);
+                    queue.add(new QueueEntry(neighbor,
+                        heuristic != null ? newDist + heuristic.applyAsDouble(neighbor, end) : newDist));
+                    metrics.relaxations++;
+                    metrics.pushes++;
                 }
             }
         }
 
         // Reconstruct path and return result
         List<Vertex> path = reconstructPath(predecessors, end);
+        metrics.timeNanos = System.nanoTime() - startTime;
         return new PathResult(
             path,
-            explored,
+            Collections.emptyList(),
             path.isEmpty() ? Double.POSITIVE_INFINITY : distances.get(end),
-            System.currentTimeMillis() - startTime
+            metrics
         );
     }
 
+    // --- Bidirectional Search ---
+
     /**
-     * A* algorithm with Euclidean heuristic.
-     * Optimizes Dijkstra by prioritizing nodes closer to the target.
+     * Bidirectional Dijkstra: grows one search from start and one from end,
+     * always expanding the smaller frontier, and stops as soon as the two
+     * frontiers prove the best meeting point is optimal.
+     * Assumes an undirected graph (as ImageGraph is), so the backward search
+     * follows the same edges in reverse.
+     * @param start Starting vertex
+     * @param end Target vertex
+     * @return PathResult; listeners see the vertices settled by both searches
      */
-    public static PathResult aStar(Vertex start, Vertex end) {
-        long startTime = System.currentTimeMillis();
-        
-        Map<Vertex, Double> gScore = new HashMap<>(); // Actual distances from start
-        Map<Vertex, Double> fScore = new HashMap<>(); // Estimated total cost (gScore + heuristic)
-        Map<Vertex, Vertex> predecessors = new HashMap<>();
-        PriorityQueue<Vertex> queue = new PriorityQueue<>(Comparator.comparingDouble(fScore::get));
-        List<Vertex> explored = new ArrayList<>();
+    public static PathResult bidirectionalDijkstra(Vertex start, Vertex end) {
+        return searchBidirectional(start, end, false, null);
+    }
 
-        // Initialize scores
-        for (Vertex v : getAllVertices(start)) {
-            gScore.put(v, Double.POSITIVE_INFINITY);
-            fScore.put(v, Double.POSITIVE_INFINITY);
-        }
-        gScore.put(start, 0.0);
-        fScore.put(start, heuristic(start, end));
-        queue.add(start);
+    public static PathResult bidirectionalDijkstra(Vertex start, Vertex end, SearchListener listener) {
+        return searchBidirectional(start, end, false, listener);
+    }
 
-        while (!queue.isEmpty()) {
-            Vertex current = queue.poll();
-            explored.add(current);
+    /**
+     * Bidirectional A*. Both searches share the consistent potential
+     * (h(v, end) - h(v, start)) / 2, the average of the forward and backward
+     * Euclidean heuristics, so the Dijkstra stopping rule stays exact.
+     */
+    public static PathResult bidirectionalAStar(Vertex start, Vertex end) {
+        return searchBidirectional(start, end, true, null);
+    }
 
-            if (current.equals(end)) break;
+    public static PathResult bidirectionalAStar(Vertex start, Vertex end, SearchListener listener) {
+        return searchBidirectional(start, end, true, listener);
+    }
 
-            for (Edge edge : current.getEdges()) {
-                Vertex neighbor = edge.getDestination();
-                if (neighbor.isObstacle()) continue;
+    private static PathResult searchBidirectional(Vertex start, Vertex end, boolean useHeuristic,
+                                                  SearchListener listener) {
+        long startTime = System.nanoTime();
+        SearchMetrics metrics = new SearchMetrics();
+        if (!mayReach(start, end)) return unreachable(metrics, startTime);
 
-                double tentativeGScore = gScore.get(current) + edge.getWeight();
-                if (tentativeGScore < gScore.get(neighbor)) {
-                    predecessors.put(neighbor, current);
-                    gScore.put(neighbor, tentativeGScore);
-                    fScore.put(neighbor, tentativeGScore + heuristic(neighbor, end));
-                    if (!queue.contains(neighbor)) queue.add(neighbor);
+        Frontier forward = new Frontier(metrics), backward = new Frontier(metrics);
+        double best = Double.POSITIVE_INFINITY; // Cheapest start-end route seen so far
+        Vertex meeting = null;
+
+        if (!start.equals(end) && !end.isObstacle()) {
+            forward.offer(start, null, 0.0, potential(start, start, end, useHeuristic));
+            backward.offer(end, null, 0.0, -potential(end, start, end, useHeuristic));
+
+            while (forward.hasNext() && backward.hasNext()) {
+                if (forward.peekKey() + backward.peekKey() >= best) break;
+
+                boolean forwardStep = forward.queue.size() <= backward.queue.size();
+                Frontier side = forwardStep ? forward : backward;
+                Frontier other = forwardStep ? backward : forward;
+                Vertex current = side.settleNext();
+                if (listener != null) listener.settled(current);
+
+                double base = side.distance(current);
+                for (Edge edge : current.getEdges()) {
+                    Vertex neighbor = edge.getDestination();
+                    // The backward search may step onto start even if it is an obstacle
+                    boolean passable = !neighbor.isObstacle() || (!forwardStep && neighbor.equals(start));
+                    if (!passable || side.settled.contains(neighbor)) continue;
+
+                    double newDist = base + edge.getWeight();
+                    double p = potential(neighbor, start, end, useHeuristic);
+                    if (side.offer(neighbor, current, newDist, forwardStep ? newDist + p : newDist - p)) {
+                        double total = newDist + other.distance(neighbor);
+                        if (total < best) {
+                            best = total;
+                            meeting = neighbor;
+                        }
+                    }
                 }
             }
         }
 
-        List<Vertex> path = reconstructPath(predecessors, end);
+        List<Vertex> path = new LinkedList<>();
+        if (meeting != null) {
+            for (Vertex v = meeting; v != null; v = forward.predecessors.get(v)) path.add(0, v);
+            for (Vertex v = backward.predecessors.get(meeting); v != null; v = backward.predecessors.get(v)) path.add(v);
+        }
+        metrics.timeNanos = System.nanoTime() - startTime;
+        return new PathResult(path, Collections.emptyList(), best, metrics);
+    }
+
+    /**
+     * Average of the forward and backward heuristics (0 for plain Dijkstra).
+     * Forward keys add it, backward keys subtract it.
+     */
+    private static double potential(Vertex v, Vertex start, Vertex end, boolean useHeuristic) {
+        return useHeuristic ? (heuristic(v, end) - heuristic(v, start)) / 2 : 0.0;
+    }
+
+    /**
+     * One direction of a bidirectional Vertex search.
+     */
+    private static class Frontier {
+        final Map<Vertex, Double> distances = new HashMap<>();
+        final Map<Vertex, Vertex> predecessors = new HashMap<>();
+        final Set<Vertex> settled = new HashSet<>();
+        final PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+        final SearchMetrics metrics;    // Shared by both directions
+
+        Frontier(SearchMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        double distance(Vertex v) {
+            return distances.getOrDefault(v, Double.POSITIVE_INFINITY);
+        }
+
+        /**
+         * Records the distance and queues the vertex if it improves on the known one.
+         * @return true if the distance improved
+         */
+        boolean offer(Vertex v, Vertex predecessor, double distance, double key) {
+            if (distance >= distance(v)) return false;
+            distances.put(v, distance);
+            if (predecessor != null) predecessors.put(v, predecessor);
+            queue.add(new QueueEntry(v, key));
+            metrics.pushes++;
+            if (predecessor != null) metrics.relaxations++;
+            return true;
+        }
+
+        /**
+         * Drops stale entries, then reports whether anything is left to settle.
+         */
+        boolean hasNext() {
+            while (!queue.isEmpty() && settled.contains(queue.peek().vertex)) {
+                queue.poll();
+                metrics.pops++;
+                metrics.stalePops++;
+            }
+            return !queue.isEmpty();
+        }
+
+        double peekKey() { return queue.peek().priority; }
+
+        Vertex settleNext() {
+            Vertex v = queue.poll().vertex;
+            settled.add(v);
+            metrics.pops++;
+            metrics.settled++;
+            return v;
+        }
+    }
+
+    // --- Indexed Graph Search ---
+
+    /**
+     * Dijkstra's algorithm over an indexed (CSR or implicit) graph, using
+     * region ids instead of Vertex objects.
+     * @param graph Indexed graph to search
+     * @param start Starting region id
+     * @param end Target region id
+     * @return PathResult whose vertices are views onto the indexed graph
+     */
+    public static PathResult dijkstra(IndexedGraph graph, int start, int end) {
+        long startTime = System.nanoTime();
+        return toPathResult(graph, searchIndexed(graph, start, end, false, null), startTime);
+    }
+
+    /**
+     * A* over an indexed graph with the same Euclidean heuristic as the Vertex version.
+     */
+    public static PathResult aStar(IndexedGraph graph, int start, int end) {
+        long startTime = System.nanoTime();
+        return toPathResult(graph, searchIndexed(graph, start, end, true, null), startTime);
+    }
+
+    /**
+     * ALT A* over an indexed graph.
+     * @param landmarks Landmarks built for this graph
+     */
+    public static PathResult aStar(IndexedGraph graph, int start, int end, Landmarks landmarks) {
+        long startTime = System.nanoTime();
+        return toPathResult(graph, searchIndexed(graph, start, end, landmarks, null, null), startTime);
+    }
+
+    /**
+     * Bidirectional Dijkstra over an indexed graph (see the Vertex version).
+     */
+    public static PathResult bidirectionalDijkstra(IndexedGraph graph, int start, int end) {
+        long startTime = System.nanoTime();
+        return toPathResult(graph, searchBidirectional(graph, start, end, false, null), startTime);
+    }
+
+    /**
+     * Bidirectional A* over an indexed graph (see the Vertex version).
+     */
+    public static PathResult bidirectionalAStar(IndexedGraph graph, int start, int end) {
+        long startTime = System.nanoTime();
+        return toPathResult(graph, searchBidirectional(graph, start, end, true, null), startTime);
+    }
+
+    /**
+     * Raw outcome of an indexed search, in region ids.
+     */
+    static class IndexedPath {
+        final int[] path;
+        final int[] explored;
+        final double totalCost;
+        final SearchMetrics metrics;
+
+        IndexedPath(int[] path, int[] explored, double totalCost, SearchMetrics metrics) {
+            this.path = path;
+            this.explored = explored;
+            this.totalCost = totalCost;
+            this.metrics = metrics;
+        }
+    }
+
+    /**
+     * Wraps an indexed search outcome in the public result shape.
+     * @param startTime System.nanoTime() when the search began
+     */
+    static PathResult toPathResult(IndexedGraph graph, IndexedPath result, long startTime) {
+        result.metrics.timeNanos = System.nanoTime() - startTime;
         return new PathResult(
+            graph.asVertexList(result.path),
+            graph.asVertexList(result.explored),
+            result.totalCost,
+            result.metrics
+        );
+    }
+
+    /** One reusable engine per thread, so repeated queries skip all initialisation */
+    private static final ThreadLocal<SearchEngine> ENGINES =
+        ThreadLocal.withInitial(() -> new SearchEngine(0));
+
+    /**
+     * Runs an indexed Dijkstra/A* query on this thread's SearchEngine.
+     * @param allowed Regions the search may enter, or null for all of them
+     */
+    static IndexedPath searchIndexed(IndexedGraph graph, int start, int end,
+                                     boolean useHeuristic, BitSet allowed) {
+        return searchIndexed(graph, start, end, useHeuristic ? SearchEngine.EUCLIDEAN : null, allowed, null);
+    }
+
+    static IndexedPath searchIndexed(IndexedGraph graph, int start, int end, SearchEngine.Heuristic heuristic,
+                                     BitSet allowed, SearchListener listener) {
+        SearchEngine engine = ENGINES.get();
+        engine.search(graph, start, end, heuristic, allowed, listener);
+        int[] path = engine.getPath(end);
+        SearchMetrics metrics = new SearchMetrics();
+        engine.addMetricsTo(metrics);
+        return new IndexedPath(
             path,
-            explored,
-            path.isEmpty() ? Double.POSITIVE_INFINITY : gScore.get(end),
-            System.currentTimeMillis() - startTime
+            engine.getExplored(),
+            path.length == 0 ? Double.POSITIVE_INFINITY : engine.getDistance(end),
+            metrics
         );
     }
 
+    /** Forward and backward engines per thread for bidirectional queries */
+    private static final ThreadLocal<SearchEngine[]> BIDIRECTIONAL_ENGINES =
+        ThreadLocal.withInitial(() -> new SearchEngine[] { new SearchEngine(0), new SearchEngine(0) });
+
+    /**
+     * Bidirectional Dijkstra/A* on this thread's engine pair.
+     * Indexed graphs link every neighbour pair both ways with equal weights,
+     * so the backward search walks the same adjacency.
+     */
+    static IndexedPath searchBidirectional(IndexedGraph graph, int start, int end, boolean useHeuristic,
+                                           SearchListener listener) {
+        SearchEngine[] engines = BIDIRECTIONAL_ENGINES.get();
+        SearchEngine forward = engines[0], backward = engines[1];
+        forward.reset(graph.getVertexCount());
+        backward.reset(graph.getVertexCount());
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+
+        if (start != end && !graph.isObstacle(end)) {
+            forward.offer(start, -1, 0.0, potential(graph, start, start, end, useHeuristic));
+            backward.offer(end, -1, 0.0, -potential(graph, end, start, end, useHeuristic));
+
+            while (forward.hasQueued() && backward.hasQueued()) {
+                if (forward.peekKey() + backward.peekKey() >= best) break;
+
+                boolean forwardStep = forward.queuedCount() <= backward.queuedCount();
+                SearchEngine side = forwardStep ? forward : backward;
+                SearchEngine other = forwardStep ? backward : forward;
+                int current = side.settleNext();
+                if (listener != null) listener.settled(current);
+
+                double base = side.getDistance(current);
+                for (int i = 0; i < graph.getDegree(current); i++) {
+                    int neighbor = graph.getNeighbor(current, i);
+                    boolean passable = !graph.isObstacle(neighbor) || (!forwardStep && neighbor == start);
+                    if (!passable || side.isSettled(neighbor)) continue;
+
+                    double newDist = base + graph.getWeight(current, i);
+                    double p = potential(graph, neighbor, start, end, useHeuristic);
+                    if (side.offer(neighbor, current, newDist, forwardStep ? newDist + p : newDist - p)) {
+                        double total = newDist + other.getDistance(neighbor);
+                        if (total < best) {
+                            best = total;
+                            meeting = neighbor;
+                        }
+                    }
+                }
+            }
+        }
+
+        int[] path = new int[0];
+        if (meeting != -1) {
+            int[] head = forward.getPath(meeting);
+            if (head.length == 0) head = new int[] { meeting }; // Backward search reached start itself
+            int tail = 0;
+            for (int v = backward.getPredecessor(meeting); v != -1; v = backward.getPredecessor(v)) tail++;
+            path = Arrays.copyOf(head, head.length + tail);
+            for (int v = backward.getPredecessor(meeting), i = head.length; v != -1; v = backward.getPredecessor(v)) {
+                path[i++] = v;
+            }
+        }
+
+        int[] fromStart = forward.getExplored(), fromEnd = backward.getExplored();
+        int[] explored = Arrays.copyOf(fromStart, fromStart.length + fromEnd.length);
+        System.arraycopy(fromEnd, 0, explored, fromStart.length, fromEnd.length);
+        SearchMetrics metrics = new SearchMetrics();
+        forward.addMetricsTo(metrics);
+        backward.addMetricsTo(metrics);
+        return new IndexedPath(path, explored, best, metrics);
+    }
+
+    private static double potential(IndexedGraph graph, int v, int start, int end, boolean useHeuristic) {
+        return useHeuristic ? (graph.distance(v, end) - graph.distance(v, start)) / 2 : 0.0;
+    }
+
+    /**
+     * Priority queue entry for the Vertex search (vertex + priority).
+     * A vertex may be queued more than once; only its cheapest entry counts.
+     */
+    private static class QueueEntry implements Comparable<QueueEntry> {
+        final Vertex vertex;
+        final double priority;
+
+        QueueEntry(Vertex vertex, double priority) {
+            this.vertex = vertex;
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(QueueEntry other) {
+            return Double.compare(priority, other.priority);
+        }
+    }
+
     // --- Helper Methods ---
 
+    /**
+     * Asks the vertices' graph whether a path can exist at all, so queries
+     * between separated regions skip the search.
+     */
+    private static boolean mayReach(Vertex start, Vertex end) {
+        Graph graph = start.getGraph();
+        return graph == null || graph != end.getGraph() || graph.mayReach(start, end);
+    }
+
+    private static PathResult unreachable(SearchMetrics metrics, long startTime) {
+        metrics.timeNanos = System.nanoTime() - startTime;
+        return new PathResult(new ArrayList<>(), Collections.emptyList(), Double.POSITIVE_INFINITY, metrics);
+    }
+
     /**
      * Reconstructs path from predecessors map.
      */
@@ -161,23 +615,4 @@ public class Pathfinder {
     private static double heuristic(Vertex a, Vertex b) {
         return Math.sqrt(Math.pow(a.getX() - b.getX(), 2) + Math.pow(a.getY() - b.getY(), 2));
     }
-
-    /**
-     * Gets all vertices reachable from 'start' (BFS traversal).
-     */
-    private static Set<Vertex> getAllVertices(Vertex start) {
-        Set<Vertex> visited = new HashSet<>();
-        Queue<Vertex> queue = new LinkedList<>();
-        queue.add(start);
-
-        while (!queue.isEmpty()) {
-            Vertex current = queue.poll();
-            if (visited.add(current)) {
-                for (Edge edge : current.getEdges()) {
-                    queue.add(edge.getDestination());
-                }
-            }
-        }
-        return visited;
-    }
-}
\ No newline at end of file
+}
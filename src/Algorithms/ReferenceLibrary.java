@@ -0,0 +1,598 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Algorithms.SimilarityDetector.SimilarityResult;
+import Graph.DistanceKernels;
+import Graph.ImageGraph;
+import Graph.IndexedGraph;
+import Graph.MappedGraph;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+
+/**
+ * Library of reference images (e.g. labelled potholes) that answers "which
+ * references look most like this image?" without comparing against all of them.
+ *
+ * <p>Each reference is stored as its GraphSignature in a hierarchical navigable
+ * small-world (HNSW) graph. A query walks down the layers of that graph to its
+ * nearest signatures, visiting a few hundred references instead of all of
+ * them. Only the shortlisted references are loaded again and scored with
+ * SimilarityDetector.
+ *
+ * <p>The library is saved to and loaded from a single binary file holding the
+ * image paths, signatures and links, so it is built once per reference set.
+ * A read/write lock guards the graph: searches, saves and lookups share it
+ * and run alongside each other, while an addition waits for them and holds
+ * it alone.
+ */
+public class ReferenceLibrary {
+    /** Links per reference on the upper layers (twice as many on the bottom one) */
+    public static final int DEFAULT_LINKS = 16;
+    /** Candidate list size while inserting; larger builds a better graph, slower */
+    public static final int DEFAULT_BUILD_BREADTH = 100;
+    /** Candidate list size while searching */
+    public static final int DEFAULT_SEARCH_BREADTH = 64;
+    /** Neighbours used by the full k-NN comparison, as in Main */
+    public static final int DEFAULT_K = 5;
+    /** References shortlisted per match wanted, before the full comparison */
+    public static final int DEFAULT_SHORTLIST_FACTOR = 4;
+
+    private static final int MAGIC = 0x50474C42;       // "PGLB"
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_LEVEL = 16;
+
+    private final int regionSize;
+    private final int links;
+    private final int buildBreadth;
+    private final double levelFactor;                   // 1 / ln(links)
+
+    private final List<String> images = new ArrayList<>();        // Absolute path per reference
+    private float[] vectors = new float[64 * GraphSignature.LENGTH]; // Signatures back to back
+    private final List<int[][]> neighbors = new ArrayList<>();    // [level] -> {count, ids...}
+    private int entryPoint = -1;
+    private int topLevel = -1;
+    private volatile File graphCache;                   // Directory of mapped reference graphs, or null
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an empty library with the default graph parameters.
+     * @param regionSize Region size reference and query graphs are summarised at
+     */
+    public ReferenceLibrary(int regionSize) {
+        this(regionSize, DEFAULT_LINKS, DEFAULT_BUILD_BREADTH);
+    }
+
+    /**
+     * @param regionSize Region size reference and query graphs are summarised at
+     * @param links Links per reference on the upper layers
+     * @param buildBreadth Candidate list size while inserting
+     */
+    public ReferenceLibrary(int regionSize, int links, int buildBreadth) {
+        if (regionSize < 1 || links < 2 || buildBreadth < 1) throw new IllegalArgumentException("Invalid library parameters");
+        this.regionSize = regionSize;
+        this.links = links;
+        this.buildBreadth = buildBreadth;
+        this.levelFactor = 1.0 / Math.log(links);
+    }
+
+    // --- Building ---
+
+    /**
+     * Adds one reference image.
+     * @return Index of the new reference
+     * @throws IOException if the image cannot be read
+     */
+    public int add(File image) throws IOException {
+        GraphSignature signature = GraphSignature.of(new ImageGraph(readImage(image), regionSize));
+        lock.writeLock().lock();
+        try {
+            return insert(image.getAbsolutePath(), signature.toArray());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds many reference images. Signatures are computed in parallel and then
+     * inserted in the given order; unreadable files are skipped.
+     * @param parallelism Number of images summarised at once
+     * @return Number of references added
+     */
+    public int addAll(List<File> files, int parallelism) {
+        GraphSignature[] signatures = new GraphSignature[files.size()];
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.submit(() -> IntStream.range(0, signatures.length).parallel().forEach(i -> {
+                try {
+                    signatures[i] = GraphSignature.of(new ImageGraph(readImage(files.get(i)), regionSize));
+                } catch (IOException e) {
+                    signatures[i] = null; // Skipped below
+                }
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        int added = 0;
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < signatures.length; i++) {
+                if (signatures[i] == null) continue;
+                insert(files.get(i).getAbsolutePath(), signatures[i].toArray());
+                added++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return added;
+    }
+
+    // --- Searching ---
+
+    /**
+     * Shortlists references by signature distance only.
+     * @param query Graph of the new image (any region size)
+     * @param n Number of candidates wanted
+     * @return Up to n candidates, closest signature first
+     */
+    public List<Candidate> candidates(ImageGraph query, int n) {
+        float[] vector = signatureOf(query).toArray();
+        List<Candidate> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Scored s : nearest(vector, n, Math.max(DEFAULT_SEARCH_BREADTH, n))) {
+                result.add(new Candidate(s.node, new File(images.get(s.node)), Math.sqrt(s.distance)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Finds the n references most similar to a query: shortlists
+     * DEFAULT_SHORTLIST_FACTOR * n of them by signature, scores each one with
+     * the full comparison and keeps the n best.
+     * @param query Graph of the new image
+     * @param n Number of matches wanted
+     * @return Up to n matches, highest similarity score first
+     * @throws IOException if a shortlisted reference image can no longer be read
+     */
+    public List<Match> search(ImageGraph query, int n) throws IOException {
+        return search(query, n, DEFAULT_SHORTLIST_FACTOR * n);
+    }
+
+    /**
+     * Finds the n references most similar to a query among a shortlist of the
+     * closest signatures. A reference outside the shortlist is never scored,
+     * so a longer shortlist finds more of the true best matches, at the cost
+     * of one full comparison per extra reference.
+     * @param query Graph of the new image
+     * @param n Number of matches wanted
+     * @param shortlist References scored with the full comparison (at least n)
+     * @return Up to n matches, highest similarity score first
+     * @throws IOException if a shortlisted reference image can no longer be read
+     */
+    public List<Match> search(ImageGraph query, int n, int shortlist) throws IOException {
+        ImageGraph graph = atLibraryRegionSize(query);
+        List<Match> matches = new ArrayList<>();
+        File cache = graphCache;
+        for (Candidate candidate : candidates(graph, Math.max(n, shortlist))) {
+            SimilarityResult similarity;
+            if (cache == null) {
+                ImageGraph reference = new ImageGraph(readImage(candidate.image), regionSize);
+                similarity = SimilarityDetector.calculateSimilarity(graph, reference, DEFAULT_K);
+            } else {
+                similarity = SimilarityDetector.calculateSimilarity(FeatureSnapshot.of(graph),
+                    FeatureSnapshot.of(cachedGraph(cache, candidate.image)), DEFAULT_K);
+            }
+            matches.add(new Match(candidate, similarity));
+        }
+        matches.sort((a, b) -> Double.compare(b.similarity.similarityScore, a.similarity.similarityScore));
+        return matches.size() > n ? new ArrayList<>(matches.subList(0, n)) : matches;
+    }
+
+    private GraphSignature signatureOf(ImageGraph query) {
+        return GraphSignature.of(atLibraryRegionSize(query));
+    }
+
+    private ImageGraph atLibraryRegionSize(ImageGraph graph) {
+        return graph.getRegionSize() == regionSize ? graph
+            : new ImageGraph(graph.getImage(), graph.getIntegralImage(), regionSize);
+    }
+
+    /**
+     * Maps the cached graph of a reference image, writing the cache file first
+     * if it is missing, older than the image or unreadable.
+     */
+    private IndexedGraph cachedGraph(File cache, File image) throws IOException {
+        File file = new File(cache, image.getName() + "-" + Integer.toHexString(image.getAbsolutePath().hashCode())
+                                    + "-r" + regionSize + ".pgg");
+        if (file.isFile() && file.lastModified() >= image.lastModified()) {
+            try {
+                return MappedGraph.open(file);
+            } catch (IOException e) {
+                // Damaged or from another format version: rebuild it below
+            }
+        }
+        MappedGraph.write(new ImageGraph(readImage(image), regionSize), file);
+        return MappedGraph.open(file);
+    }
+
+    private static BufferedImage readImage(File file) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) throw new IOException("Unsupported image: " + file);
+        return image;
+    }
+
+    // --- HNSW Core ---
+
+    private int insert(String image, float[] vector) {
+        int node = images.size();
+        images.add(image);
+        if ((node + 1) * GraphSignature.LENGTH > vectors.length) {
+            vectors = Arrays.copyOf(vectors, vectors.length * 2);
+        }
+        System.arraycopy(vector, 0, vectors, node * GraphSignature.LENGTH, GraphSignature.LENGTH);
+
+        int level = levelOf(node);
+        int[][] lists = new int[level + 1][];
+        for (int l = 0; l <= level; l++) lists[l] = new int[maxLinks(l) + 1];
+        neighbors.add(lists);
+
+        if (entryPoint == -1) {
+            entryPoint = node;
+            topLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = topLevel; l > level; l--) current = greedy(vector, current, l);
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            List<Scored> found = searchLayer(vector, current, buildBreadth, l);
+            for (Scored chosen : selectNeighbors(found, links)) {
+                connect(node, chosen.node, l);
+                connect(chosen.node, node, l);
+            }
+            current = found.get(0).node;
+        }
+        if (level > topLevel) {
+            entryPoint = node;
+            topLevel = level;
+        }
+        return node;
+    }
+
+    /**
+     * Adds a directed link, re-selecting the node's links if it is full.
+     */
+    private void connect(int from, int to, int level) {
+        int[] list = neighbors.get(from)[level];
+        int count = list[0];
+        if (count < list.length - 1) {
+            list[++list[0]] = to;
+            return;
+        }
+        List<Scored> options = new ArrayList<>(count + 1);
+        for (int i = 1; i <= count; i++) options.add(new Scored(list[i], distance(from, list[i])));
+        options.add(new Scored(to, distance(from, to)));
+        Collections.sort(options);
+
+        List<Scored> kept = selectNeighbors(options, list.length - 1);
+        list[0] = kept.size();
+        for (int i = 0; i < kept.size(); i++) list[i + 1] = kept.get(i).node;
+    }
+
+    /**
+     * HNSW neighbour heuristic: keeps a candidate only if it is closer to the
+     * base than to every candidate already kept, so links spread out in
+     * different directions; pruned candidates fill any remaining slots.
+     * @param candidates Candidates sorted by distance to the base, closest first
+     */
+    private List<Scored> selectNeighbors(List<Scored> candidates, int m) {
+        List<Scored> selected = new ArrayList<>(m), pruned = new ArrayList<>();
+        for (Scored candidate : candidates) {
+            if (selected.size() >= m) break;
+            boolean diverse = true;
+            for (Scored kept : selected) {
+                if (distance(candidate.node, kept.node) < candidate.distance) {
+                    diverse = false;
+                    break;
+                }
+            }
+            (diverse ? selected : pruned).add(candidate);
+        }
+        for (int i = 0; i < pruned.size() && selected.size() < m; i++) selected.add(pruned.get(i));
+        return selected;
+    }
+
+    /**
+     * Walks one layer from the start towards the query until no link improves.
+     */
+    private int greedy(float[] query, int start, int level) {
+        int current = start;
+        double best = distance(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] list = neighbors.get(current)[level];
+            for (int i = 1; i <= list[0]; i++) {
+                double d = distance(query, list[i]);
+                if (d < best) {
+                    best = d;
+                    current = list[i];
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer keeping the breadth closest nodes found.
+     * @return Found nodes, closest first
+     */
+    private List<Scored> searchLayer(float[] query, int start, int breadth, int level) {
+        BitSet visited = new BitSet(images.size());
+        PriorityQueue<Scored> frontier = new PriorityQueue<>();
+        PriorityQueue<Scored> found = new PriorityQueue<>(Collections.reverseOrder());
+        Scored first = new Scored(start, distance(query, start));
+        visited.set(start);
+        frontier.add(first);
+        found.add(first);
+
+        while (!frontier.isEmpty()) {
+            Scored current = frontier.poll();
+            if (current.distance > found.peek().distance) break; // Nothing closer left to reach
+            int[] list = neighbors.get(current.node)[level];
+            for (int i = 1; i <= list[0]; i++) {
+                int next = list[i];
+                if (visited.get(next)) continue;
+                visited.set(next);
+                double d = distance(query, next);
+                if (found.size() < breadth || d < found.peek().distance) {
+                    Scored scored = new Scored(next, d);
+                    frontier.add(scored);
+                    found.add(scored);
+                    if (found.size() > breadth) found.poll();
+                }
+            }
+        }
+        List<Scored> result = new ArrayList<>(found);
+        Collections.sort(result);
+        return result;
+    }
+
+    private List<Scored> nearest(float[] query, int n, int breadth) {
+        if (entryPoint == -1 || n < 1) return Collections.emptyList();
+        int current = entryPoint;
+        for (int l = topLevel; l > 0; l--) current = greedy(query, current, l);
+        List<Scored> found = searchLayer(query, current, Math.max(breadth, n), 0);
+        return found.subList(0, Math.min(n, found.size()));
+    }
+
+    /**
+     * Exponentially distributed layer, derived from the index so that a
+     * library rebuilt from the same images has the same shape.
+     */
+    private int levelOf(int node) {
+        double u = new SplittableRandom(node * 0x9E3779B97F4A7C15L + 1).nextDouble();
+        return Math.min(MAX_LEVEL, (int) (-Math.log(1.0 - u) * levelFactor));
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? 2 * links : links;
+    }
+
+    private double distance(float[] query, int node) {
+        return DistanceKernels.squaredDistance(query, 0, vectors, node * GraphSignature.LENGTH, GraphSignature.LENGTH);
+    }
+
+    private double distance(int a, int b) {
+        return DistanceKernels.squaredDistance(vectors, a * GraphSignature.LENGTH,
+                                               vectors, b * GraphSignature.LENGTH, GraphSignature.LENGTH);
+    }
+
+    // --- Persistence ---
+
+    /**
+     * Writes the library to a file, replacing it only once the write succeeded.
+     */
+    public void save(File file) throws IOException {
+        lock.readLock().lock();
+        try {
+            write(file);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(File file) throws IOException {
+        File temp = new File(file.getAbsolutePath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(GraphSignature.LENGTH);
+            out.writeInt(regionSize);
+            out.writeInt(links);
+            out.writeInt(buildBreadth);
+            out.writeInt(images.size());
+            out.writeInt(entryPoint);
+            out.writeInt(topLevel);
+            for (int node = 0; node < images.size(); node++) {
+                out.writeUTF(images.get(node));
+                for (int i = 0; i < GraphSignature.LENGTH; i++) {
+                    out.writeFloat(vectors[node * GraphSignature.LENGTH + i]);
+                }
+                int[][] lists = neighbors.get(node);
+                out.writeByte(lists.length);
+                for (int[] list : lists) {
+                    out.writeShort(list[0]);
+                    for (int i = 1; i <= list[0]; i++) out.writeInt(list[i]);
+                }
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a library written by {@link #save(File)}.
+     * @throws IOException if the file is not a library of this format
+     */
+    public static ReferenceLibrary load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a reference library: " + file);
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) throw new IOException("Unsupported library version " + version);
+            if (in.readInt() != GraphSignature.LENGTH) throw new IOException("Library signatures have a different layout");
+
+            int regionSize = in.readInt(), links = in.readInt(), buildBreadth = in.readInt();
+            // Link counts are stored as shorts, and the bottom layer has 2 * links
+            if (regionSize < 1 || links < 2 || links > Short.MAX_VALUE / 2 || buildBreadth < 1) throw damaged(file);
+            ReferenceLibrary library = new ReferenceLibrary(regionSize, links, buildBreadth);
+            int count = in.readInt();
+            library.entryPoint = in.readInt();
+            library.topLevel = in.readInt();
+            if (count < 0 || count > Integer.MAX_VALUE / GraphSignature.LENGTH
+                || library.entryPoint < -1 || library.entryPoint >= count || (library.entryPoint == -1) != (count == 0)
+                || library.topLevel < -1 || library.topLevel > MAX_LEVEL) {
+                throw damaged(file);
+            }
+            // Grown as nodes are read, so a damaged count fails at the end of the file
+            library.vectors = new float[Math.max(1, Math.min(count, 64)) * GraphSignature.LENGTH];
+            for (int node = 0; node < count; node++) {
+                library.images.add(in.readUTF());
+                if ((node + 1) * GraphSignature.LENGTH > library.vectors.length) {
+                    library.vectors = Arrays.copyOf(library.vectors, library.vectors.length * 2);
+                }
+                for (int i = 0; i < GraphSignature.LENGTH; i++) {
+                    library.vectors[node * GraphSignature.LENGTH + i] = in.readFloat();
+                }
+                int[][] lists = new int[in.readUnsignedByte()][];
+                if (lists.length == 0 || lists.length > MAX_LEVEL + 1) throw damaged(file);
+                for (int l = 0; l < lists.length; l++) {
+                    lists[l] = new int[library.maxLinks(l) + 1];
+                    lists[l][0] = in.readShort();
+                    if (lists[l][0] < 0 || lists[l][0] > library.maxLinks(l)) throw damaged(file);
+                    for (int i = 1; i <= lists[l][0]; i++) {
+                        lists[l][i] = in.readInt();
+                        if (lists[l][i] < 0 || lists[l][i] >= count) throw damaged(file);
+                    }
+                }
+                library.neighbors.add(lists);
+            }
+
+            // Searches follow a link on layer l only into nodes that have that layer
+            if (count > 0 && library.neighbors.get(library.entryPoint).length != library.topLevel + 1) throw damaged(file);
+            for (int[][] lists : library.neighbors) {
+                for (int l = 0; l < lists.length; l++) {
+                    for (int i = 1; i <= lists[l][0]; i++) {
+                        if (library.neighbors.get(lists[l][i]).length <= l) throw damaged(file);
+                    }
+                }
+            }
+            return library;
+        }
+    }
+
+    private static IOException damaged(File file) {
+        return new IOException("Damaged reference library: " + file);
+    }
+
+    // --- Accessors ---
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return images.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getRegionSize() { return regionSize; }
+    public File getGraphCache() { return graphCache; }
+
+    /**
+     * Keeps the graphs of shortlisted references as MappedGraph files in a
+     * directory, so later searches map them instead of decoding the images
+     * and rebuilding their graphs. Scores are the same either way.
+     * @param directory Cache directory (created if missing), or null to turn caching off
+     */
+    public void setGraphCache(File directory) throws IOException {
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create graph cache directory: " + directory);
+        }
+        graphCache = directory;
+    }
+
+    public File getImage(int index) {
+        lock.readLock().lock();
+        try {
+            return new File(images.get(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reference shortlisted by signature distance.
+     */
+    public static class Candidate {
+        public final int index;
+        public final File image;
+        public final double signatureDistance;
+
+        Candidate(int index, File image, double signatureDistance) {
+            this.index = index;
+            this.image = image;
+            this.signatureDistance = signatureDistance;
+        }
+    }
+
+    /**
+     * Shortlisted reference together with its full comparison.
+     */
+    public static class Match {
+        public final int index;
+        public final File image;
+        public final double signatureDistance;
+        public final SimilarityResult similarity;
+
+        Match(Candidate candidate, SimilarityResult similarity) {
+            this.index = candidate.index;
+            this.image = candidate.image;
+            this.signatureDistance = candidate.signatureDistance;
+            this.similarity = similarity;
+        }
+    }
+
+    /**
+     * Node with its squared signature distance to the current query or base.
+     */
+    private static class Scored implements Comparable<Scored> {
+        final int node;
+        final double distance;
+
+        Scored(int node, double distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Scored other) {
+            int c = Double.compare(distance, other.distance);
+            return c != 0 ? c : Integer.compare(node, other.node);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Graph.IndexedGraph;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Reusable Dijkstra/A* engine for indexed graphs.
+ * Distances live in a double[], the queue is an IndexedHeap with decrease-key,
+ * and every array entry carries a generation stamp: starting a new query just
+ * bumps the generation, so no per-query initialisation pass over the graph is
+ * needed. One engine serves any number of sequential queries; use one engine
+ * per thread.
+ */
+public class SearchEngine {
+    private double[] distances;
+    private int[] predecessors;
+    private int[] reached;      // Generation in which distances/predecessors were written
+    private int[] closed;       // Generation in which the vertex was settled
+    private int[] explored;     // Settle order of the current query
+    private int exploredCount;
+    private int generation;
+    private final IndexedHeap queue;
+    private final SearchMetrics metrics = new SearchMetrics();  // Counters of the current query
+
+    /**
+     * @param capacity Initial number of vertices; grows on demand
+     */
+    public SearchEngine(int capacity) {
+        distances = new double[capacity];
+        predecessors = new int[capacity];
+        reached = new int[capacity];
+        closed = new int[capacity];
+        explored = new int[capacity];
+        queue = new IndexedHeap(capacity);
+    }
+
+    /**
+     * Lower bound on the remaining cost from a region to the target; must be
+     * consistent for A* to stay optimal.
+     */
+    public interface Heuristic {
+        double estimate(IndexedGraph graph, int vertex, int target);
+    }
+
+    /** Straight-line distance; edge weights never undercut it */
+    public static final Heuristic EUCLIDEAN = IndexedGraph::distance;
+
+    /**
+     * Runs Dijkstra (or A* with the Euclidean heuristic) from start until end is settled.
+     * @param graph Graph to search
+     * @param start Starting region id
+     * @param end Target region id, or -1 to settle everything reachable (Dijkstra only)
+     * @param useHeuristic true for A*, false for Dijkstra
+     * @param allowed Regions the search may enter, or null for all of them
+     * @return true if end was reached
+     */
+    public boolean search(IndexedGraph graph, int start, int end, boolean useHeuristic, BitSet allowed) {
+        return search(graph, start, end, useHeuristic ? EUCLIDEAN : null, allowed);
+    }
+
+    /**
+     * Runs A* with the given heuristic, or Dijkstra if it is null.
+     * @see #search(IndexedGraph, int, int, boolean, BitSet)
+     */
+    public boolean search(IndexedGraph graph, int start, int end, Heuristic heuristic, BitSet allowed) {
+        return search(graph, start, end, heuristic, allowed, null);
+    }
+
+    /**
+     * Runs A* with the given heuristic (Dijkstra if null), reporting every
+     * settled region to the listener.
+     * @param listener Receives settled regions as they happen, or null
+     */
+    public boolean search(IndexedGraph graph, int start, int end, Heuristic heuristic, BitSet allowed,
+                          SearchListener listener) {
+        begin(graph.getVertexCount());
+        relax(start, -1, 0.0);
+        push(start, heuristic != null ? heuristic.estimate(graph, start, end) : 0.0);
+
+        while (!queue.isEmpty()) {
+            int current = pop();
+            if (listener != null) listener.settled(current);
+
+            if (current == end) return true;
+
+            double base = distances[current];
+            for (int i = 0; i < graph.getDegree(current); i++) {
+                int neighbor = graph.getNeighbor(current, i);
+                if (graph.isObstacle(neighbor) || closed[neighbor] == generation) continue;
+                if (allowed != null && !allowed.get(neighbor)) continue;
+
+                double newDist = base + graph.getWeight(current, i);
+                if (newDist < getDistance(neighbor)) {
+                    relax(neighbor, current, newDist);
+                    push(neighbor, heuristic != null ? newDist + heuristic.estimate(graph, neighbor, end) : newDist);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One-to-many Dijkstra: settles vertices from start until targetCount of the
+     * marked targets are settled (or everything reachable is).
+     * @param isTarget Marks the targets; indexed by region id
+     * @param targetCount Number of marked targets the search can settle
+     * @return Number of targets settled
+     */
+    public int searchTargets(IndexedGraph graph, int start, boolean[] isTarget, int targetCount) {
+        begin(graph.getVertexCount());
+        relax(start, -1, 0.0);
+        push(start, 0.0);
+
+        int found = 0;
+        while (!queue.isEmpty()) {
+            int current = pop();
+
+            if (isTarget[current] && ++found == targetCount) break;
+
+            double base = distances[current];
+            for (int i = 0; i < graph.getDegree(current); i++) {
+                int neighbor = graph.getNeighbor(current, i);
+                if (graph.isObstacle(neighbor) || closed[neighbor] == generation) continue;
+
+                double newDist = base + graph.getWeight(current, i);
+                if (newDist < getDistance(neighbor)) {
+                    relax(neighbor, current, newDist);
+                    push(neighbor, newDist);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Starts a new query: bumps the generation and sizes the scratch arrays.
+     */
+    private void begin(int vertexCount) {
+        if (vertexCount > distances.length) {
+            distances = Arrays.copyOf(distances, vertexCount);
+            predecessors = Arrays.copyOf(predecessors, vertexCount);
+            reached = Arrays.copyOf(reached, vertexCount);
+            closed = Arrays.copyOf(closed, vertexCount);
+            explored = new int[vertexCount];
+            queue.ensureCapacity(vertexCount);
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            // Stamps are about to wrap; clear them once and start over
+            Arrays.fill(reached, 0);
+            Arrays.fill(closed, 0);
+            generation = 1;
+        }
+        queue.clear();
+        exploredCount = 0;
+        metrics.settled = metrics.pushes = metrics.pops = metrics.relaxations = 0;
+    }
+
+    private void relax(int vertex, int predecessor, double distance) {
+        distances[vertex] = distance;
+        predecessors[vertex] = predecessor;
+        reached[vertex] = generation;
+        if (predecessor != -1) metrics.relaxations++;
+    }
+
+    private void push(int vertex, double key) {
+        queue.push(vertex, key);
+        metrics.pushes++;
+    }
+
+    /**
+     * Pops and settles the queued vertex with the smallest key. The heap has
+     * true decrease-key, so no pop is ever stale.
+     */
+    private int pop() {
+        int current = queue.pop();
+        closed[current] = generation;
+        explored[exploredCount++] = current;
+        metrics.pops++;
+        metrics.settled++;
+        return current;
+    }
+
+    // --- Stepwise Access (multi-frontier searches) ---
+
+    /**
+     * Starts an empty query that the caller drives step by step.
+     */
+    void reset(int vertexCount) {
+        begin(vertexCount);
+    }
+
+    /**
+     * Records a tentative distance and queues the vertex if it improves on the known one.
+     * @param key Queue priority (distance plus any potential)
+     * @return true if the distance improved
+     */
+    boolean offer(int vertex, int predecessor, double distance, double key) {
+        if (distance >= getDistance(vertex)) return false;
+        relax(vertex, predecessor, distance);
+        push(vertex, key);
+        return true;
+    }
+
+    boolean hasQueued() { return !queue.isEmpty(); }
+    int queuedCount() { return queue.size(); }
+    double peekKey() { return queue.peekKey(); }
+
+    /**
+     * Settles the queued vertex with the smallest key.
+     */
+    int settleNext() {
+        return pop();
+    }
+
+    /**
+     * @return Predecessor on the current shortest-path tree, -1 for the root or unreached vertices
+     */
+    int getPredecessor(int vertex) {
+        return reached[vertex] == generation ? predecessors[vertex] : -1;
+    }
+
+    // --- Results of the last query ---
+
+    /**
+     * @return Shortest known distance from the start, infinity if not reached
+     */
+    public double getDistance(int vertex) {
+        return reached[vertex] == generation ? distances[vertex] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return true if the vertex's distance is final
+     */
+    public boolean isSettled(int vertex) {
+        return closed[vertex] == generation;
+    }
+
+    /**
+     * Reconstructs the path to a settled vertex.
+     * @return Ids from the start to end, or an empty array if end was not reached
+     *         (or is the start itself, matching the Vertex-based searches)
+     */
+    public int[] getPath(int end) {
+        if (reached[end] != generation || predecessors[end] == -1) return new int[0];
+
+        int length = 1;
+        for (int v = end; predecessors[v] != -1; v = predecessors[v]) length++;
+        int[] path = new int[length];
+        for (int v = end, i = length - 1; i >= 0; v = predecessors[v], i--) path[i] = v;
+        return path;
+    }
+
+    /**
+     * @return Settled ids in settle order
+     */
+    public int[] getExplored() {
+        return Arrays.copyOf(explored, exploredCount);
+    }
+
+    public int getSettledCount() { return exploredCount; }
+
+    /**
+     * Adds the counters of the last query to the given metrics.
+     */
+    void addMetricsTo(SearchMetrics target) {
+        target.add(metrics);
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+import Graph.Vertex;
+
+/**
+ * Receives search events as they happen, e.g. to trace the explored area for
+ * visualisation. Searches without a listener skip the calls entirely.
+ * Vertex searches report Vertex objects, indexed searches report region ids.
+ */
+public interface SearchListener {
+    /**
+     * Called when a vertex's distance becomes final.
+     */
+    default void settled(Vertex vertex) {}
+
+    /**
+     * Called when a region's distance becomes final in an indexed search.
+     */
+    default void settled(int id) {}
+}
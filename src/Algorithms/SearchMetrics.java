@@ -0,0 +1,46 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Algorithms;
+
+/**
+ * Counters and timing of one search.
+ * Searches count in plain fields as they run, so collecting metrics costs a
+ * few increments per vertex and nothing is allocated per step.
+ */
+public class SearchMetrics {
+    long settled;       // Vertices whose distance became final
+    long pushes;        // Queue insertions and decrease-keys
+    long pops;          // Queue removals, stale ones included
+    long stalePops;     // Removals of entries superseded by a cheaper one
+    long relaxations;   // Edges that improved a tentative distance
+    long timeNanos;
+
+    /**
+     * Adds another search's counters to these (e.g. both halves of a
+     * bidirectional search, or every level of a hierarchical one).
+     */
+    void add(SearchMetrics other) {
+        settled += other.settled;
+        pushes += other.pushes;
+        pops += other.pops;
+        stalePops += other.stalePops;
+        relaxations += other.relaxations;
+    }
+
+    // --- Accessors ---
+    public long getSettled() { return settled; }
+    public long getPushes() { return pushes; }
+    public long getPops() { return pops; }
+    public long getStalePops() { return stalePops; }
+    public long getRelaxations() { return relaxations; }
+    public long getTimeNanos() { return timeNanos; }
+    public double getTimeMillis() { return timeNanos / 1_000_000.0; }
+
+    @Override
+    public String toString() {
+        return String.format("settled=%d pushes=%d pops=%d stale=%d relaxations=%d time=%.3f ms",
+                             settled, pushes, pops, stalePops, relaxations, getTimeMillis());
+    }
+}
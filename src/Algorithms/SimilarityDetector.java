@@ -5,8 +5,16 @@
 package Algorithms;
 
 import Graph.Graph;
-import Graph.Vertex;
-import java.util.*;
+import Graph.GraphStats;
+import Graph.ImageGraph;
+import Graph.IndexedGraph;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
 
 /**
  * Compares two image graphs using multiple similarity metrics to determine
@@ -19,6 +27,14 @@ import java.util.*;
  *   <li>Structural similarity - Compares graph connectivity patterns</li>
  *   <li>k-NN similarity - Finds most similar regions between images</li>
  * </ol>
+ *
+ * <p>In cascade mode, pairs of image graphs are first screened with cheap
+ * global signatures and only pairs that pass go on to the metrics above.
+ *
+ * <p>In approximate mode, only whether the score lies above or below a
+ * threshold is wanted: regions of the first graph are sampled until a
+ * confidence interval around the estimated score settles that, or a time
+ * budget runs out.
  */
 public class SimilarityDetector {
 
@@ -33,7 +49,7 @@ public class SimilarityDetector {
         /** Score based on visual feature similarity (0-1) */
         public final double featureSimilarity;
         
-        /** Score based on graph structure similarity (0-1) */
+        /** Score based on graph structure similarity (0-0.5, 0.5 for equal degree distributions) */
         public final double structuralSimilarity;
         
         /** Time taken for comparison in milliseconds */
@@ -54,8 +70,211 @@ public class SimilarityDetector {
         }
     }
 
+    /**
+     * Screening thresholds for cascade comparisons, with counts of the pairs
+     * each stage rejected. Stages run cheapest-signal first and a pair stops
+     * at the first threshold it misses. One cascade may be shared by threads
+     * comparing different pairs.
+     */
+    public static class Cascade {
+        /** Screening stages, in the order they run */
+        public enum Stage { COLOR_HISTOGRAM, DEGREE_DISTRIBUTION, PERCEPTUAL_HASH }
+
+        /** Default lowest colour histogram intersection (0-1) */
+        public static final double DEFAULT_MIN_COLOR_SIMILARITY = 0.5;
+        /** Default lowest structural similarity (0-0.5, as compareStructures) */
+        public static final double DEFAULT_MIN_STRUCTURAL_SIMILARITY = 0.3;
+        /** Default highest number of differing perceptual hash bits (of 64) */
+        public static final int DEFAULT_MAX_HASH_DISTANCE = 28;
+
+        private final double minColorSimilarity;
+        private final double minStructuralSimilarity;
+        private final int maxHashDistance;
+        private final AtomicLongArray rejected = new AtomicLongArray(Stage.values().length);
+        private final AtomicLong passed = new AtomicLong();
+
+        public Cascade() {
+            this(DEFAULT_MIN_COLOR_SIMILARITY, DEFAULT_MIN_STRUCTURAL_SIMILARITY, DEFAULT_MAX_HASH_DISTANCE);
+        }
+
+        /**
+         * @param minColorSimilarity Lowest colour histogram intersection that passes
+         * @param minStructuralSimilarity Lowest degree distribution similarity that passes
+         * @param maxHashDistance Highest perceptual hash distance that passes
+         */
+        public Cascade(double minColorSimilarity, double minStructuralSimilarity, int maxHashDistance) {
+            this.minColorSimilarity = minColorSimilarity;
+            this.minStructuralSimilarity = minStructuralSimilarity;
+            this.maxHashDistance = maxHashDistance;
+        }
+
+        /**
+         * @return Stage that rejects the pair, or null if it passes every stage
+         */
+        Stage screen(GraphSignature a, GraphSignature b) {
+            if (a.colorSimilarity(b) < minColorSimilarity) return Stage.COLOR_HISTOGRAM;
+            if (a.structuralSimilarity(b) < minStructuralSimilarity) return Stage.DEGREE_DISTRIBUTION;
+            if (a.hashDistance(b) > maxHashDistance) return Stage.PERCEPTUAL_HASH;
+            return null;
+        }
+
+        void record(Stage stage) {
+            if (stage == null) passed.incrementAndGet();
+            else rejected.incrementAndGet(stage.ordinal());
+        }
+
+        /**
+         * Zeroes the counters; the thresholds are kept.
+         */
+        public void resetCounts() {
+            for (int i = 0; i < rejected.length(); i++) rejected.set(i, 0);
+            passed.set(0);
+        }
+
+        // --- Statistics ---
+        public long getRejected(Stage stage) { return rejected.get(stage.ordinal()); }
+        public long getPassed() { return passed.get(); }
+
+        public long getCompared() {
+            long total = passed.get();
+            for (int i = 0; i < rejected.length(); i++) total += rejected.get(i);
+            return total;
+        }
+
+        public double getMinColorSimilarity() { return minColorSimilarity; }
+        public double getMinStructuralSimilarity() { return minStructuralSimilarity; }
+        public int getMaxHashDistance() { return maxHashDistance; }
+    }
+
+    /**
+     * Outcome of a cascade comparison: the screening scores, and the full
+     * result if the pair got that far.
+     */
+    public static class CascadeResult {
+        /** Stage that rejected the pair, or null if it passed */
+        public final Cascade.Stage rejectedAt;
+
+        /** Colour histogram intersection (0-1) */
+        public final double colorSimilarity;
+
+        /** Degree distribution similarity, the same value as the full structural score */
+        public final double structuralSimilarity;
+
+        /** Differing perceptual hash bits (0-64) */
+        public final int hashDistance;
+
+        /** Full comparison, or null if the pair was rejected */
+        public final SimilarityResult result;
+
+        CascadeResult(Cascade.Stage rejectedAt, double colorSimilarity, double structuralSimilarity,
+                      int hashDistance, SimilarityResult result) {
+            this.rejectedAt = rejectedAt;
+            this.colorSimilarity = colorSimilarity;
+            this.structuralSimilarity = structuralSimilarity;
+            this.hashDistance = hashDistance;
+            this.result = result;
+        }
+
+        public boolean passed() { return rejectedAt == null; }
+    }
+
+    /**
+     * Settings of an approximate comparison: the threshold to decide, how sure
+     * the decision must be and how long it may take.
+     */
+    public static class Sampling {
+        /** Default two-sided confidence of the score interval */
+        public static final double DEFAULT_CONFIDENCE = 0.95;
+        /** Default number of regions sampled before a decision is allowed */
+        public static final int DEFAULT_MIN_SAMPLES = 32;
+        /** Default number of regions sampled between interval updates */
+        public static final int DEFAULT_BATCH_SIZE = 64;
+
+        private final double threshold;
+        private final double confidence;
+        private final long budgetMillis;
+        private final int minSamples;
+        private final int batchSize;
+        private final long seed;
+
+        /**
+         * @param threshold Score to decide against
+         * @param budgetMillis Sampling time allowed; 0 or less for no limit
+         */
+        public Sampling(double threshold, long budgetMillis) {
+            this(threshold, DEFAULT_CONFIDENCE, budgetMillis, DEFAULT_MIN_SAMPLES, DEFAULT_BATCH_SIZE, 0);
+        }
+
+        /**
+         * @param threshold Score to decide against
+         * @param confidence Two-sided confidence of the interval, in (0, 1)
+         * @param budgetMillis Sampling time allowed; 0 or less for no limit
+         * @param minSamples Regions sampled before a decision is allowed
+         * @param batchSize Regions sampled between interval updates
+         * @param seed Seed of the sampling order; equal seeds sample the same regions
+         */
+        public Sampling(double threshold, double confidence, long budgetMillis, int minSamples, int batchSize, long seed) {
+            if (!(confidence > 0 && confidence < 1) || minSamples < 2 || batchSize < 1) {
+                throw new IllegalArgumentException("Invalid sampling settings");
+            }
+            this.threshold = threshold;
+            this.confidence = confidence;
+            this.budgetMillis = budgetMillis;
+            this.minSamples = minSamples;
+            this.batchSize = batchSize;
+            this.seed = seed;
+        }
+
+        public double getThreshold() { return threshold; }
+        public double getConfidence() { return confidence; }
+        public long getBudgetMillis() { return budgetMillis; }
+        public int getMinSamples() { return minSamples; }
+        public int getBatchSize() { return batchSize; }
+        public long getSeed() { return seed; }
+    }
+
+    /**
+     * Outcome of an approximate comparison.
+     */
+    public static class Estimate {
+        /** Where the score lies relative to the threshold */
+        public enum Decision { ABOVE, BELOW, UNDECIDED }
+
+        /** Estimated combined score (0-1) */
+        public final double similarityScore;
+
+        /** Confidence interval of the combined score */
+        public final double lower, upper;
+
+        /** ABOVE or BELOW once settled; UNDECIDED if the budget ran out first */
+        public final Decision decision;
+
+        /** Regions of the first graph sampled, out of population */
+        public final int samples, population;
+
+        /** Time taken in milliseconds, including building the second graph's index */
+        public final long timeMillis;
+
+        Estimate(double similarityScore, double lower, double upper, Decision decision,
+                 int samples, int population, long timeMillis) {
+            this.similarityScore = similarityScore;
+            this.lower = lower;
+            this.upper = upper;
+            this.decision = decision;
+            this.samples = samples;
+            this.population = population;
+            this.timeMillis = timeMillis;
+        }
+
+        /** @return Whether every region was sampled, making the score exact up to rounding */
+        public boolean isExhaustive() { return samples == population; }
+    }
+
+
     /**
      * Calculates overall similarity between two graphs using multiple metrics.
+     * Each graph is read once into a FeatureSnapshot, and the metrics are then
+     * evaluated side by side.
      * @param graph1 First graph to compare
      * @param graph2 Second graph to compare
      * @param k Number of neighbors to consider in k-NN comparison
@@ -63,18 +282,232 @@ public class SimilarityDetector {
      */
     public static SimilarityResult calculateSimilarity(Graph graph1, Graph graph2, int k) {
         long startTime = System.currentTimeMillis();
-        
-        // Compare different aspects of the graphs
-        double featureSim = compareFeatures(graph1, graph2);
-        double structuralSim = compareStructures(graph1, graph2);
-        double knnSim = compareKNN(graph1, graph2, k);
+        return evaluate(FeatureSnapshot.of(graph1), FeatureSnapshot.of(graph2), k, startTime);
+    }
+
+    /**
+     * Cascade mode: screens the pair with the graphs' signatures and computes
+     * the full metrics only if it passes. Scores of passing pairs are exactly
+     * those of {@link #calculateSimilarity(Graph, Graph, int)}. Signatures are
+     * attached to the graphs, so a graph compared many times is summarised once.
+     * @param cascade Thresholds; also counts the outcome
+     * @return Screening scores, plus the full result for pairs that passed
+     */
+    public static CascadeResult calculateSimilarity(ImageGraph graph1, ImageGraph graph2, int k, Cascade cascade) {
+        GraphSignature s1 = GraphSignature.of(graph1), s2 = GraphSignature.of(graph2);
+        Cascade.Stage rejectedAt = cascade.screen(s1, s2);
+        cascade.record(rejectedAt);
+
+        return new CascadeResult(
+            rejectedAt,
+            s1.colorSimilarity(s2),
+            s1.structuralSimilarity(s2),
+            s1.hashDistance(s2),
+            rejectedAt == null ? calculateSimilarity(graph1, graph2, k) : null
+        );
+    }
+
+
+    /**
+     * Calculates the same similarity metrics for two indexed (CSR or implicit) graphs.
+     * Degrees are counted the way the equivalent ImageGraph stores its edges,
+     * so structural scores match those of the object-based graphs.
+     * @param graph1 First graph to compare
+     * @param graph2 Second graph to compare
+     * @param k Number of neighbors to consider in k-NN comparison
+     * @return SimilarityResult containing all comparison metrics
+     */
+    public static SimilarityResult calculateSimilarity(IndexedGraph graph1, IndexedGraph graph2, int k) {
+        long startTime = System.currentTimeMillis();
+        return evaluate(FeatureSnapshot.of(graph1), FeatureSnapshot.of(graph2), k, startTime);
+    }
+
+    /**
+     * Calculates the similarity metrics for two snapshots already taken,
+     * e.g. when one graph is compared against many others.
+     */
+    public static SimilarityResult calculateSimilarity(FeatureSnapshot snapshot1, FeatureSnapshot snapshot2, int k) {
+        return evaluate(snapshot1, snapshot2, k, System.currentTimeMillis());
+    }
+
+    // --- Approximate Mode ---
+
+    /**
+     * Estimates the similarity score of two graphs by sampling, stopping once
+     * it is settled whether the score lies above or below the threshold.
+     * @param k Number of neighbors to consider in k-NN comparison
+     * @param sampling Threshold, confidence and time budget
+     */
+    public static Estimate estimateSimilarity(Graph graph1, Graph graph2, int k, Sampling sampling) {
+        long startTime = System.currentTimeMillis();
+        return estimate(FeatureSnapshot.of(graph1), FeatureSnapshot.of(graph2), k, sampling, startTime);
+    }
+
+    /**
+     * Same as {@link #estimateSimilarity(Graph, Graph, int, Sampling)} for indexed graphs.
+     */
+    public static Estimate estimateSimilarity(IndexedGraph graph1, IndexedGraph graph2, int k, Sampling sampling) {
+        long startTime = System.currentTimeMillis();
+        return estimate(FeatureSnapshot.of(graph1), FeatureSnapshot.of(graph2), k, sampling, startTime);
+    }
+
+    /**
+     * Same as {@link #estimateSimilarity(Graph, Graph, int, Sampling)} for snapshots already taken.
+     */
+    public static Estimate estimateSimilarity(FeatureSnapshot snapshot1, FeatureSnapshot snapshot2, int k,
+                                              Sampling sampling) {
+        return estimate(snapshot1, snapshot2, k, sampling, System.currentTimeMillis());
+    }
+
+    /**
+     * The structural score is exact and cheap. The feature and k-NN scores are
+     * means of per-region terms over the first graph, so regions are drawn in
+     * random order without replacement, a batch at a time, and each mean gets
+     * a normal interval with the finite population correction. The feature
+     * score is monotone in its mean distance, so that interval maps straight
+     * across. The two intervals share the error allowance (each is taken at
+     * half the miss rate), which makes the combined interval conservative.
+     *
+     * <p>The interval is checked after every batch, so the chance of an early
+     * wrong decision is somewhat above 1 - confidence; ask for more confidence
+     * where that matters.
+     */
+    private static Estimate estimate(FeatureSnapshot s1, FeatureSnapshot s2, int k, Sampling sampling, long startTime) {
+        long deadline = sampling.budgetMillis > 0 ? startTime + sampling.budgetMillis : Long.MAX_VALUE;
+        double structuralSim = compareStructures(s1, s2);
+        int n = s1.size(), featured = s1.featuredCount();
+        if (n == 0 || s2.featuredCount() == 0) {
+            // Feature and k-NN scores are 0 without anything to match
+            double score = 0.3 * structuralSim;
+            return new Estimate(score, score, score, decide(score, score, score, true, sampling.threshold),
+                                0, n, System.currentTimeMillis() - startTime);
+        }
+
+        FeatureIndex index2 = s2.getIndex();
+        double z = normalQuantile(1 - (1 - sampling.confidence) / 4);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        SplittableRandom random = new SplittableRandom(sampling.seed);
+        double[] nearest = new double[sampling.batchSize], knn = new double[sampling.batchSize];
+
+        // Running means and squared deviations (Welford) of both per-region terms
+        int m = 0, mFeatured = 0;
+        double distanceMean = 0, distanceM2 = 0, knnMean = 0, knnM2 = 0;
+        double lower, upper, score;
+        Estimate.Decision decision;
+        while (true) {
+            int batch = Math.min(sampling.batchSize, n - m);
+            for (int j = 0; j < batch; j++) {
+                int pick = m + j + random.nextInt(n - m - j);
+                int t = order[m + j]; order[m + j] = order[pick]; order[pick] = t;
+            }
+            int from = m;
+            IntStream.range(0, batch).parallel().forEach(j -> {
+                double[] vector = s1.vector(order[from + j]);
+                double[] distances = index2.nearestDistances(vector, Math.max(k, 1));
+                double avgSim = 0.0;
+                for (int i = 0; i < Math.min(k, distances.length); i++) avgSim += 1.0 / (1.0 + distances[i]);
+                nearest[j] = distances.length > 0 ? distances[0] : Double.NaN;
+                knn[j] = avgSim / k;
+            });
+            for (int j = 0; j < batch; j++) {
+                m++;
+                double delta = knn[j] - knnMean;
+                knnMean += delta / m;
+                knnM2 += delta * (knn[j] - knnMean);
+                if (s1.vector(order[from + j]) != null) {
+                    mFeatured++;
+                    delta = nearest[j] - distanceMean;
+                    distanceMean += delta / mFeatured;
+                    distanceM2 += delta * (nearest[j] - distanceMean);
+                }
+            }
+
+            double distanceMargin = margin(distanceM2, mFeatured, featured, z);
+            double knnMargin = margin(knnM2, m, n, z);
+            double featureSim = featured == 0 ? 0.0 : 1.0 / (1.0 + distanceMean);
+            double featureLow = featured == 0 ? 0.0 : 1.0 / (1.0 + distanceMean + distanceMargin);
+            double featureHigh = featured == 0 ? 0.0 : 1.0 / (1.0 + Math.max(0, distanceMean - distanceMargin));
+            score = 0.4 * featureSim + 0.3 * structuralSim + 0.3 * knnMean;
+            lower = 0.4 * featureLow + 0.3 * structuralSim + 0.3 * Math.max(0, knnMean - knnMargin);
+            upper = 0.4 * featureHigh + 0.3 * structuralSim + 0.3 * Math.min(1, knnMean + knnMargin);
+
+            boolean exhausted = m == n;
+            decision = decide(score, lower, upper, exhausted, sampling.threshold);
+            if (exhausted || (m >= sampling.minSamples && decision != Estimate.Decision.UNDECIDED)) break;
+            if (System.currentTimeMillis() >= deadline) {
+                decision = Estimate.Decision.UNDECIDED;
+                break;
+            }
+        }
+        return new Estimate(score, lower, upper, decision, m, n, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Half-width of the interval of a sample mean, shrunk by the finite
+     * population correction; unbounded while fewer than two values are seen.
+     */
+    private static double margin(double squaredDeviations, int samples, int population, double z) {
+        if (samples >= population) return 0.0;
+        if (samples < 2) return Double.POSITIVE_INFINITY;
+        double variance = squaredDeviations / (samples - 1);
+        double correction = (double) (population - samples) / (population - 1);
+        return z * Math.sqrt(variance / samples * correction);
+    }
+
+    private static Estimate.Decision decide(double score, double lower, double upper, boolean exact, double threshold) {
+        if (exact) return score >= threshold ? Estimate.Decision.ABOVE : Estimate.Decision.BELOW;
+        if (lower >= threshold) return Estimate.Decision.ABOVE;
+        if (upper < threshold) return Estimate.Decision.BELOW;
+        return Estimate.Decision.UNDECIDED;
+    }
+
+    /**
+     * Inverse of the standard normal distribution function (Acklam's rational
+     * approximation, relative error below 1.2e-9).
+     */
+    static double normalQuantile(double p) {
+        final double[] a = { -3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                             1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00 };
+        final double[] b = { -5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                             6.680131188771972e+01, -1.328068155288572e+01 };
+        final double[] c = { -7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                             -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00 };
+        final double[] d = { 7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                             3.754408661907416e+00 };
+        if (p < 0.02425) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                 / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - 0.02425) return -normalQuantile(1 - p);
+        double q = p - 0.5, r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+             / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    // --- Exact Metrics ---
+
+    /**
+     * Runs the feature and k-NN metrics concurrently on the fork-join pool the
+     * caller runs in (the common pool otherwise), each itself split over the
+     * vertices of the first graph; the cheap structural metric runs on the
+     * calling thread meanwhile. Staying in the caller's pool keeps batch jobs
+     * within the parallelism they asked for. Every metric sums its per-vertex
+     * terms in vertex order, so the scores do not depend on scheduling.
+     */
+    private static SimilarityResult evaluate(FeatureSnapshot s1, FeatureSnapshot s2, int k, long startTime) {
+        ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        CompletableFuture<Double> featureSim = CompletableFuture.supplyAsync(() -> compareFeatures(s1, s2), pool);
+        CompletableFuture<Double> knnSim = CompletableFuture.supplyAsync(() -> compareKNN(s1, s2, k), pool);
+        double structuralSim = compareStructures(s1, s2);
         
         // Combine scores with weighted average
-        double combinedScore = 0.4 * featureSim + 0.3 * structuralSim + 0.3 * knnSim;
+        double combinedScore = 0.4 * featureSim.join() + 0.3 * structuralSim + 0.3 * knnSim.join();
         
         return new SimilarityResult(
             combinedScore,
-            featureSim,
+            featureSim.join(),
             structuralSim,
             System.currentTimeMillis() - startTime
         );
@@ -82,132 +515,72 @@ public class SimilarityDetector {
 
     /**
      * Compares visual features (colors/textures) between graphs.
-     * Uses Euclidean distance between feature vectors.
-     * @param g1 First graph
-     * @param g2 Second graph
+     * Uses Euclidean distance from each feature vector to its nearest match
+     * in the other graph; vertices without features are left out.
+     * @param s1 Snapshot of the first graph
+     * @param s2 Snapshot of the second graph
      * @return Normalized similarity score (0-1)
      */
-    private static double compareFeatures(Graph g1, Graph g2) {
-        List<double[]> features1 = extractFeatures(g1);
-        List<double[]> features2 = extractFeatures(g2);
+    private static double compareFeatures(FeatureSnapshot s1, FeatureSnapshot s2) {
+        if (s1.featuredCount() == 0 || s2.featuredCount() == 0) return 0.0;
+        FeatureIndex index2 = s2.getIndex();
         
-        if (features1.isEmpty() || features2.isEmpty()) return 0.0;
-        
-        // Find minimal distances between all feature pairs
+        // Find each feature's nearest match in the other graph
+        double[] distances = new double[s1.size()];
+        IntStream.range(0, distances.length).parallel().forEach(i -> {
+            if (s1.vector(i) != null) distances[i] = index2.nearestDistance(s1.vector(i));
+        });
+
         double totalDistance = 0.0;
-        for (double[] f1 : features1) {
-            double minDist = Double.POSITIVE_INFINITY;
-            for (double[] f2 : features2) {
-                minDist = Math.min(minDist, euclideanDistance(f1, f2));
-            }
-            totalDistance += minDist;
+        for (int i = 0; i < distances.length; i++) {
+            if (s1.vector(i) != null) totalDistance += distances[i];
         }
         
         // Convert distance to similarity (higher = more similar)
-        return 1.0 / (1.0 + (totalDistance / features1.size()));
+        return 1.0 / (1.0 + (totalDistance / s1.featuredCount()));
     }
 
     /**
      * Compares graph structures by analyzing degree distributions.
-     * Uses histogram intersection of node degrees.
-     * @param g1 First graph
-     * @param g2 Second graph
-     * @return Structural similarity score (0-1)
-     */
-    private static double compareStructures(Graph g1, Graph g2) {
-        Map<Integer, Integer> degDist1 = getDegreeDistribution(g1);
-        Map<Integer, Integer> degDist2 = getDegreeDistribution(g2);
-        
-        // Calculate how much the degree distributions overlap
-        Set<Integer> allDegrees = new HashSet<>();
-        allDegrees.addAll(degDist1.keySet());
-        allDegrees.addAll(degDist2.keySet());
-        
-        double intersection = 0.0;
-        for (int degree : allDegrees) {
-            intersection += Math.min(
-                degDist1.getOrDefault(degree, 0),
-                degDist2.getOrDefault(degree, 0)
-            );
-        }
-        
-        double union = g1.getVertices().size() + g2.getVertices().size();
-        return union > 0 ? intersection / union : 0.0;
+     * Uses histogram intersection of node degrees over the combined vertex count,
+     * which is at most half when both graphs have the same distribution.
+     * @param s1 Snapshot of the first graph
+     * @param s2 Snapshot of the second graph
+     * @return Structural similarity score (0-0.5)
+     */
+    private static double compareStructures(FeatureSnapshot s1, FeatureSnapshot s2) {
+        return GraphStats.degreeOverlap(s1.degreeCounts(), s1.size(), s2.degreeCounts(), s2.size());
     }
 
     /**
      * Compares graphs using k-Nearest Neighbor matching.
      * For each node in graph1, finds k most similar nodes in graph2.
-     * @param g1 First graph
-     * @param g2 Second graph
+     * Each vertex's k best matches come from a fixed-size heap of primitive
+     * distances inside the feature index, so no distance is computed twice
+     * and graph2 is never sorted. Vertices are scored in parallel and the
+     * scores summed in vertex order. Vertices without features match nothing;
+     * a missing match adds 0.
+     * @param s1 Snapshot of the first graph
+     * @param s2 Snapshot of the second graph
      * @param k Number of neighbors to consider
      * @return k-NN similarity score (0-1)
      */
-    private static double compareKNN(Graph g1, Graph g2, int k) {
-        List<Vertex> nodes1 = g1.getVertices();
-        List<Vertex> nodes2 = g2.getVertices();
-        if (nodes1.isEmpty() || nodes2.isEmpty()) return 0.0;
+    private static double compareKNN(FeatureSnapshot s1, FeatureSnapshot s2, int k) {
+        if (s1.size() == 0 || s2.featuredCount() == 0) return 0.0;
+        FeatureIndex index2 = s2.getIndex();
 
-        double totalSimilarity = 0.0;
-        for (Vertex v1 : nodes1) {
-            // Find k most similar nodes in graph2
-            PriorityQueue<Vertex> neighbors = new PriorityQueue<>(
-                Comparator.comparingDouble(v2 -> v1.featureDistance(v2))
-            );
-            neighbors.addAll(nodes2);
-            
+        double[] scores = new double[s1.size()];
+        IntStream.range(0, scores.length).parallel().forEach(i -> {
             // Calculate average similarity to top k matches
             double avgSim = 0.0;
-            for (int i = 0; i < k && !neighbors.isEmpty(); i++) {
-                avgSim += 1.0 / (1.0 + v1.featureDistance(neighbors.poll()));
+            for (double distance : index2.nearestDistances(s1.vector(i), k)) {
+                avgSim += 1.0 / (1.0 + distance);
             }
-            totalSimilarity += avgSim / k;
-        }
-        return totalSimilarity / nodes1.size();
-    }
-
-    // ======================
-    // Helper Methods
-    // ======================
-    
-    /**
-     * Extracts feature vectors from all graph vertices.
-     * @param graph The graph to process
-     * @return List of feature arrays
-     */
-    private static List<double[]> extractFeatures(Graph graph) {
-        List<double[]> features = new ArrayList<>();
-        for (Vertex v : graph.getVertices()) {
-            if (v.getFeatures() != null) features.add(v.getFeatures());
-        }
-        return features;
-    }
-
-    /**
-     * Calculates Euclidean distance between two feature vectors.
-     * @param a First feature vector
-     * @param b Second feature vector
-     * @return Distance between features
-     */
-    private static double euclideanDistance(double[] a, double[] b) {
-        double sum = 0.0;
-        for (int i = 0; i < a.length; i++) {
-            sum += Math.pow(a[i] - b[i], 2);
-        }
-        return Math.sqrt(sum);
-    }
+            scores[i] = avgSim / k;
+        });
 
-    /**
-     * Calculates degree distribution (count of nodes with each degree).
-     * @param graph The graph to analyze
-     * @return Map of degree to count of nodes
-     */
-    private static Map<Integer, Integer> getDegreeDistribution(Graph graph) {
-        Map<Integer, Integer> counts = new HashMap<>();
-        for (Vertex v : graph.getVertices()) {
-            int degree = v.getEdges().size();
-            counts.put(degree, counts.getOrDefault(degree, 0) + 1);
-        }
-        return counts;
+        double totalSimilarity = 0.0;
+        for (double score : scores) totalSimilarity += score;
+        return totalSimilarity / s1.size();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,81 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits a range of rows (or columns) into contiguous bands and runs them on a
+ * ForkJoinPool. Bands never overlap, so tasks that only write inside their own
+ * band need no further synchronisation.
+ */
+final class BandExecutor {
+    /** Bands per worker, so uneven bands still balance across threads */
+    private static final int BANDS_PER_THREAD = 4;
+
+    /**
+     * Work on the half-open range [from, to).
+     */
+    interface BandTask {
+        void run(int from, int to);
+    }
+
+    private BandExecutor() {}
+
+    /**
+     * Runs the task over [0, count) split into bands.
+     * @param count Number of rows or columns
+     * @param parallelism Worker threads; 1 or less runs inline on the caller
+     * @param task Work for one band
+     */
+    static void forEachBand(int count, int parallelism, BandTask task) {
+        if (parallelism <= 1 || count < 2) {
+            task.run(0, count);
+            return;
+        }
+
+        int bands = Math.min(count, parallelism * BANDS_PER_THREAD);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new BandAction(task, count, 0, bands, bands));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Recursively halves the band range until a single band remains.
+     */
+    private static class BandAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BandTask task;
+        private final int count, firstBand, endBand, bands;
+
+        BandAction(BandTask task, int count, int firstBand, int endBand, int bands) {
+            this.task = task;
+            this.count = count;
+            this.firstBand = firstBand;
+            this.endBand = endBand;
+            this.bands = bands;
+        }
+
+        @Override
+        protected void compute() {
+            if (endBand - firstBand == 1) {
+                task.run(bandStart(firstBand), bandStart(endBand));
+                return;
+            }
+            int mid = (firstBand + endBand) >>> 1;
+            invokeAll(new BandAction(task, count, firstBand, mid, bands),
+                      new BandAction(task, count, mid, endBand, bands));
+        }
+
+        private int bandStart(int band) {
+            return (int) ((long) count * band / bands);
+        }
+    }
+}
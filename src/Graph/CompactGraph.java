@@ -0,0 +1,128 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import java.util.BitSet;
+
+/**
+ * Compressed-sparse-row (CSR) representation of an image region graph.
+ * Regions are addressed by int ids in row-major order; coordinates, features
+ * and adjacency live in flat primitive arrays instead of Vertex/Edge objects.
+ *
+ * <p>Layout:
+ * <ul>
+ *   <li>xs/ys - pixel position of each region</li>
+ *   <li>features - featureDimension values per region, back to back</li>
+ *   <li>offsets - edges of region v are targets/weights[offsets[v] .. offsets[v + 1])</li>
+ * </ul>
+ */
+public class CompactGraph implements IndexedGraph {
+    private final int imageWidth, imageHeight;
+    private final int regionSize;
+    private final int columns, rows;
+    private final int[] xs, ys;             // Packed region coordinates
+    private final int featureDimension;
+    private final double[] features;        // Row-major feature block
+    private final BitSet obstacles;
+    private final int[] offsets;            // vertexCount + 1 entries
+    private final int[] targets;
+    private final float[] weights;
+
+    private CompactGraph(int imageWidth, int imageHeight, int regionSize,
+                         int featureDimension, double[] features, BitSet obstacles) {
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        this.regionSize = regionSize;
+        this.columns = (imageWidth + regionSize - 1) / regionSize;
+        this.rows = (imageHeight + regionSize - 1) / regionSize;
+        this.featureDimension = featureDimension;
+        this.features = features;
+        this.obstacles = obstacles;
+
+        int n = columns * rows;
+        this.xs = new int[n];
+        this.ys = new int[n];
+        for (int id = 0; id < n; id++) {
+            xs[id] = (id % columns) * regionSize;
+            ys[id] = (id / columns) * regionSize;
+        }
+
+        // Count 4-neighbours first so the edge arrays are allocated exactly once
+        this.offsets = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            int col = id % columns, row = id / columns;
+            int degree = (col > 0 ? 1 : 0) + (col < columns - 1 ? 1 : 0)
+                       + (row > 0 ? 1 : 0) + (row < rows - 1 ? 1 : 0);
+            offsets[id + 1] = offsets[id] + degree;
+        }
+        this.targets = new int[offsets[n]];
+        this.weights = new float[offsets[n]];
+
+        for (int id = 0; id < n; id++) {
+            int col = id % columns, row = id / columns;
+            int e = offsets[id];
+            // Same neighbour order as ImageGraph: right, left, down, up
+            if (col < columns - 1) e = link(id, id + 1, e);
+            if (col > 0) e = link(id, id - 1, e);
+            if (row < rows - 1) e = link(id, id + columns, e);
+            if (row > 0) link(id, id - columns, e);
+        }
+    }
+
+    /**
+     * Builds a grid graph from per-region features and obstacle flags.
+     * Every pair of 4-adjacent regions is linked in both directions; obstacles
+     * are a region property and are skipped by the search, not by the wiring.
+     * @param imageWidth Source image width in pixels
+     * @param imageHeight Source image height in pixels
+     * @param regionSize Region edge length in pixels
+     * @param featureDimension Number of feature values per region
+     * @param features Row-major features, featureDimension per region
+     * @param obstacles Obstacle flag per region id
+     * @return The assembled graph
+     */
+    public static CompactGraph ofGrid(int imageWidth, int imageHeight, int regionSize,
+                                      int featureDimension, double[] features, BitSet obstacles) {
+        int n = ((imageWidth + regionSize - 1) / regionSize) * ((imageHeight + regionSize - 1) / regionSize);
+        if (features.length != n * featureDimension) {
+            throw new IllegalArgumentException("Feature array doesn't match the region grid");
+        }
+        return new CompactGraph(imageWidth, imageHeight, regionSize, featureDimension, features, obstacles);
+    }
+
+    private int link(int source, int dest, int edge) {
+        targets[edge] = dest;
+        weights[edge] = (float) (distance(source, dest) * (1 + featureDistance(source, dest)));
+        return edge + 1;
+    }
+
+    /**
+     * Visual similarity between two regions (0 = identical).
+     */
+    @Override
+    public double featureDistance(int a, int b) {
+        return Math.sqrt(DistanceKernels.squaredDistance(features, a * featureDimension,
+                                                         features, b * featureDimension, featureDimension));
+    }
+
+    // --- Accessors ---
+    @Override public int getVertexCount() { return xs.length; }
+    @Override public int getX(int id) { return xs[id]; }
+    @Override public int getY(int id) { return ys[id]; }
+    @Override public boolean isObstacle(int id) { return obstacles.get(id); }
+    @Override public int getFeatureDimension() { return featureDimension; }
+    @Override public double getFeature(int id, int index) { return features[id * featureDimension + index]; }
+    @Override public int getRegionSize() { return regionSize; }
+    @Override public int getColumns() { return columns; }
+    @Override public int getRows() { return rows; }
+    @Override public int getImageWidth() { return imageWidth; }
+    @Override public int getImageHeight() { return imageHeight; }
+    public int getEdgeCount() { return targets.length; }
+
+    // --- Adjacency (CSR) ---
+    @Override public int getDegree(int id) { return offsets[id + 1] - offsets[id]; }
+    @Override public int getNeighbor(int id, int index) { return targets[offsets[id] + index]; }
+    @Override public double getWeight(int id, int index) { return weights[offsets[id] + index]; }
+}
@@ -0,0 +1,336 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Connected-component labelling of the passable regions of an ImageGraph.
+ * Components follow the graph's actual edges, so they agree with what a
+ * search can reach: two passable regions are in one component exactly when a
+ * path between them exists.
+ *
+ * <p>Labels are kept in a union-find forest. Removing an obstacle merges the
+ * components around it in near-constant time. Adding one is the only case
+ * that can split a component: floods start from each of its neighbours in
+ * step and stop as soon as at most one is still growing. Floods that meet are
+ * joined; the ones that ran out are pieces cut off and get fresh labels, while
+ * the last one keeps the old label without being walked to the end. A flip
+ * therefore costs time in proportion to the pieces it cuts off times the
+ * region's degree: a few steps when the neighbours meet around it, O(component)
+ * when it cuts a component into halves of similar size.
+ *
+ * <p>Labels left unused by splits are reclaimed by compacting the forest when
+ * it fills up, so it stays within twice the region count however long the
+ * session runs.
+ *
+ * <p>Queries only read the forest and may run concurrently; updates come from
+ * obstacle flips and must not overlap with queries or each other.
+ */
+public class ConnectivityIndex {
+    private final Vertex[] regions;   // Row-major, as built
+    private final int regionSize;
+    private final int columns;
+    private final int[] label;        // Union-find node of each region, -1 for obstacles
+    private int[] parent;             // Union-find forest over labels
+    private int[] size;               // Members under each root (union by size)
+    private int labelCount;
+    private int componentCount;
+    private int[] visitStamp;         // Split that last reached each region
+    private int[] visitGroup;         // Flood that reached it during that split
+    private int stamp;
+
+    /**
+     * Labels every passable region.
+     * @param regions Region vertices in row-major order
+     */
+    ConnectivityIndex(Vertex[] regions, int regionSize, int columns) {
+        this.regions = regions;
+        this.regionSize = regionSize;
+        this.columns = columns;
+        this.label = new int[regions.length];
+        this.parent = new int[Math.max(16, regions.length)];
+        this.size = new int[parent.length];
+
+        for (int id = 0; id < regions.length; id++) {
+            label[id] = regions[id].isObstacle() ? -1 : newLabel();
+        }
+        for (int id = 0; id < regions.length; id++) {
+            if (label[id] == -1) continue;
+            for (Edge edge : regions[id].getEdges()) {
+                int neighbor = idOf(edge.getDestination());
+                if (neighbor != -1 && label[neighbor] != -1) union(label[id], label[neighbor]);
+            }
+        }
+        // Point every region straight at its root so queries take one step
+        for (int id = 0; id < regions.length; id++) {
+            if (label[id] != -1) label[id] = find(label[id]);
+        }
+    }
+
+    // --- Queries ---
+
+    /**
+     * Whether a search from start can reach end. Follows Pathfinder's rules:
+     * obstacles are never entered, but the start itself may be one.
+     * @return false if no path exists; true if one does, or if either vertex
+     *         is not a region of this graph
+     */
+    public boolean connected(Vertex start, Vertex end) {
+        int s = idOf(start), t = idOf(end);
+        if (s == -1 || t == -1) return true;
+        if (label[t] == -1) return false;
+        int target = root(label[t]);
+        if (label[s] != -1) return root(label[s]) == target;
+
+        // An obstacle start leaves through its passable neighbours
+        for (Edge edge : start.getEdges()) {
+            int neighbor = idOf(edge.getDestination());
+            if (neighbor != -1 && label[neighbor] != -1 && root(label[neighbor]) == target) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return Component id of a passable region, shared by every region it can
+     *         reach; -1 for obstacles and vertices of other graphs
+     */
+    public int componentOf(Vertex vertex) {
+        int id = idOf(vertex);
+        return id == -1 || label[id] == -1 ? -1 : root(label[id]);
+    }
+
+    public int getComponentCount() { return componentCount; }
+
+    // --- Updates ---
+
+    /**
+     * Brings the labels up to date after a region's obstacle flag flipped.
+     */
+    void obstacleChanged(Vertex vertex) {
+        int id = idOf(vertex);
+        if (id == -1) return;
+        if (vertex.isObstacle()) {
+            if (label[id] != -1) split(id);
+        } else if (label[id] == -1) {
+            merge(id);
+        }
+    }
+
+    /**
+     * The region became passable: it joins every component it touches.
+     */
+    private void merge(int id) {
+        reserveLabels(1);
+        label[id] = newLabel();
+        for (Edge edge : regions[id].getEdges()) {
+            int neighbor = idOf(edge.getDestination());
+            if (neighbor != -1 && label[neighbor] != -1) union(label[id], label[neighbor]);
+        }
+    }
+
+    /**
+     * The region became an obstacle. Floods from its neighbours in its old
+     * component advance one region each in turn; a flood that reaches another
+     * joins it. Once no more than one is still growing, the floods that ran out
+     * are whole pieces of the old component and get fresh labels. The piece
+     * still growing, or else the largest, keeps the old label.
+     */
+    private void split(int id) {
+        List<Edge> edges = regions[id].getEdges();
+        reserveLabels(edges.size());
+        int old = find(label[id]);
+        label[id] = -1;
+        size[old]--;
+        componentCount--;
+        if (visitStamp == null) {
+            visitStamp = new int[regions.length];
+            visitGroup = new int[regions.length];
+        }
+        if (++stamp == 0) {
+            Arrays.fill(visitStamp, 0);
+            stamp = 1;
+        }
+
+        // One flood per neighbour: its frontier, the regions it reached, and the flood it joined
+        List<ArrayDeque<Integer>> frontiers = new ArrayList<>();
+        List<List<Integer>> reached = new ArrayList<>();
+        List<Integer> joined = new ArrayList<>();
+        for (Edge edge : edges) {
+            int seed = idOf(edge.getDestination());
+            if (seed == -1 || label[seed] == -1 || visitStamp[seed] == stamp || find(label[seed]) != old) continue;
+            visitStamp[seed] = stamp;
+            visitGroup[seed] = joined.size();
+            frontiers.add(new ArrayDeque<>(List.of(seed)));
+            reached.add(new ArrayList<>(List.of(seed)));
+            joined.add(joined.size());
+        }
+        if (frontiers.isEmpty()) return;    // The region was a component of its own
+
+        while (growing(frontiers, joined) > 1) {
+            for (int group = 0; group < frontiers.size(); group++) {
+                if (joined.get(group) != group || frontiers.get(group).isEmpty()) continue;
+                int current = frontiers.get(group).poll();
+                int owner = group;
+                for (Edge next : regions[current].getEdges()) {
+                    int neighbor = idOf(next.getDestination());
+                    if (neighbor == -1 || label[neighbor] == -1) continue;
+                    if (visitStamp[neighbor] == stamp) {
+                        owner = joinFloods(owner, flood(joined, visitGroup[neighbor]), frontiers, reached, joined);
+                    } else if (find(label[neighbor]) == old) {
+                        visitStamp[neighbor] = stamp;
+                        visitGroup[neighbor] = owner;
+                        frontiers.get(owner).add(neighbor);
+                        reached.get(owner).add(neighbor);
+                    }
+                }
+            }
+        }
+
+        // Keep the old label on the piece still growing, or on the largest one
+        int keeper = -1;
+        for (int group = 0; group < frontiers.size(); group++) {
+            if (joined.get(group) != group) continue;
+            if (!frontiers.get(group).isEmpty()) {
+                keeper = group;
+                break;
+            }
+            if (keeper == -1 || reached.get(group).size() > reached.get(keeper).size()) keeper = group;
+        }
+        componentCount++;
+        for (int group = 0; group < frontiers.size(); group++) {
+            if (joined.get(group) != group || group == keeper) continue;
+            int fresh = newLabel();
+            for (int region : reached.get(group)) label[region] = fresh;
+            size[fresh] = reached.get(group).size();
+            size[old] -= size[fresh];
+        }
+    }
+
+    /**
+     * @return Number of floods, counting joined ones once, with regions left
+     *         to expand
+     */
+    private static int growing(List<ArrayDeque<Integer>> frontiers, List<Integer> joined) {
+        int count = 0;
+        for (int group = 0; group < frontiers.size(); group++) {
+            if (joined.get(group) == group && !frontiers.get(group).isEmpty()) count++;
+        }
+        return count;
+    }
+
+    private static int flood(List<Integer> joined, int group) {
+        while (joined.get(group) != group) group = joined.get(group);
+        return group;
+    }
+
+    /**
+     * Joins two floods that met, moving the smaller one's regions into the larger.
+     * @return The flood both now belong to
+     */
+    private static int joinFloods(int a, int b, List<ArrayDeque<Integer>> frontiers,
+                                  List<List<Integer>> reached, List<Integer> joined) {
+        if (a == b) return a;
+        if (reached.get(a).size() < reached.get(b).size()) { int t = a; a = b; b = t; }
+        joined.set(b, a);
+        frontiers.get(a).addAll(frontiers.get(b));
+        reached.get(a).addAll(reached.get(b));
+        frontiers.get(b).clear();
+        reached.get(b).clear();
+        return a;
+    }
+
+    // --- Union-Find ---
+
+    /**
+     * Makes room for the labels an update may create, before it reads any.
+     * A full forest is compacted first, and only grown if it would still be
+     * more than half full, so compaction runs at most once per that many new
+     * labels.
+     */
+    private void reserveLabels(int count) {
+        if (labelCount + count <= parent.length) return;
+        compact();
+        if (labelCount + count > parent.length / 2) {
+            int capacity = Math.max(parent.length * 2, labelCount + count);
+            parent = Arrays.copyOf(parent, capacity);
+            size = Arrays.copyOf(size, capacity);
+        }
+    }
+
+    /**
+     * Renumbers the components 0..componentCount-1, one root label each, and
+     * drops every label no region uses any more.
+     */
+    private void compact() {
+        int[] renumbered = new int[labelCount];
+        Arrays.fill(renumbered, -1);
+        int count = 0;
+        for (int id = 0; id < regions.length; id++) {
+            if (label[id] == -1) continue;
+            int root = find(label[id]);
+            if (renumbered[root] == -1) renumbered[root] = count++;
+            label[id] = renumbered[root];
+        }
+        Arrays.fill(size, 0, count, 0);
+        for (int id = 0; id < regions.length; id++) {
+            if (label[id] != -1) size[label[id]]++;
+        }
+        for (int node = 0; node < count; node++) parent[node] = node;
+        labelCount = count;
+    }
+
+    /**
+     * A new single-member root; callers reserve room first.
+     */
+    private int newLabel() {
+        parent[labelCount] = labelCount;
+        size[labelCount] = 1;
+        componentCount++;
+        return labelCount++;
+    }
+
+    /**
+     * Root lookup with path halving; used by updates only.
+     */
+    private int find(int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    /**
+     * Read-only root lookup for queries. Union by size keeps trees shallow.
+     */
+    private int root(int node) {
+        while (parent[node] != node) node = parent[node];
+        return node;
+    }
+
+    private void union(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b) return;
+        if (size[a] < size[b]) { int t = a; a = b; b = t; }
+        parent[b] = a;
+        size[a] += size[b];
+        componentCount--;
+    }
+
+    /**
+     * Region id of a vertex of this graph, or -1.
+     */
+    private int idOf(Vertex vertex) {
+        if (vertex.getX() % regionSize != 0 || vertex.getY() % regionSize != 0) return -1;
+        int col = vertex.getX() / regionSize;
+        int id = (vertex.getY() / regionSize) * columns + col;
+        return col < columns && id >= 0 && id < regions.length && regions[id] == vertex ? id : -1;
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ * Squared Euclidean (L2) distance kernels for feature vectors, single and
+ * batched. The batched kernels read points stored column-major: value d of
+ * point i sits at columns[d * stride + i], so one load brings in the same
+ * feature of several neighbouring points.
+ *
+ * <p>When the JVM runs with {@code --add-modules jdk.incubator.vector} and
+ * Graph.VectorDistanceKernel (source root {@code vector/}) is on the class
+ * path, the batched kernels run on SIMD lanes, one point per lane. Otherwise,
+ * or with {@code -Dgraph.kernels=scalar}, a plain loop is used. Both add the
+ * squared differences of each point in dimension order, so they return the
+ * same bits, and the same as Vertex.featureDistance squared.
+ *
+ * <p>The graphs, the feature index and the signature code all measure L2
+ * distances through this class, so every path adds the same terms in the
+ * same order.
+ */
+public final class DistanceKernels {
+    /** Points per tile in many-to-many batches; a tile of columns stays in cache across queries */
+    public static final int TILE = 1024;
+
+    private static final Kernel KERNEL = load();
+
+    private DistanceKernels() {}
+
+    /**
+     * Batched kernels; each fills out[outOffset + (i - from)] for points i in [from, to).
+     */
+    interface Kernel {
+        void squaredDistances(double[] queries, int queryOffset, int dimension, double[] columns, int stride,
+                              int from, int to, double[] out, int outOffset);
+
+        void squaredDistances(float[] queries, int queryOffset, int dimension, float[] columns, int stride,
+                              int from, int to, float[] out, int outOffset);
+
+        /** Distance of each point i to point i + shift */
+        void pairedSquaredDistances(int dimension, double[] columns, int stride, int shift,
+                                    int from, int to, double[] out, int outOffset);
+    }
+
+    private static Kernel load() {
+        if (!"scalar".equals(System.getProperty("graph.kernels"))) {
+            try {
+                return (Kernel) Class.forName("Graph.VectorDistanceKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Vector API module or kernel class not available: use the loops below
+            }
+        }
+        return new ScalarKernel();
+    }
+
+    // --- Single Pairs ---
+
+    /**
+     * Squared distance between two feature vectors of equal length.
+     */
+    public static double squaredDistance(double[] a, double[] b) {
+        return squaredDistance(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Squared distance between two vectors stored inside larger arrays, e.g.
+     * rows of a row-major feature block.
+     * @param length Dimension of both vectors
+     */
+    public static double squaredDistance(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            double d = a[aOffset + i] - b[bOffset + i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    /**
+     * Squared distance between two single-precision vectors, e.g. signatures.
+     * Each difference is taken in float and squared and summed in double.
+     * @param length Dimension of both vectors
+     */
+    public static double squaredDistance(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            double d = a[aOffset + i] - b[bOffset + i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    /**
+     * Squared distance from a query to one point stored column-major, the
+     * single-point form of the one-to-many batch.
+     * @param columns Points column-major, query.length rows of stride values
+     */
+    public static double squaredDistance(double[] query, double[] columns, int stride, int point) {
+        double sum = 0;
+        for (int d = 0; d < query.length; d++) {
+            double diff = columns[d * stride + point] - query[d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    /**
+     * Euclidean distance between two feature vectors of equal length.
+     */
+    public static double distance(double[] a, double[] b) {
+        return Math.sqrt(squaredDistance(a, b));
+    }
+
+    // --- Batches ---
+
+    /**
+     * One-to-many: squared distances from a query to points [from, to).
+     * @param query Query vector (its length is the dimension)
+     * @param columns Points column-major, dimension rows of stride values
+     * @param out Receives the distance to point i at out[i - from]
+     */
+    public static void squaredDistances(double[] query, double[] columns, int stride, int from, int to, double[] out) {
+        KERNEL.squaredDistances(query, 0, query.length, columns, stride, from, to, out, 0);
+    }
+
+    /**
+     * Single-precision one-to-many, for feature blocks stored as floats.
+     */
+    public static void squaredDistances(float[] query, float[] columns, int stride, int from, int to, float[] out) {
+        KERNEL.squaredDistances(query, 0, query.length, columns, stride, from, to, out, 0);
+    }
+
+    /**
+     * Many-to-many: squared distances from each query to points [from, to).
+     * Points are visited a tile at a time, every query against one tile before
+     * moving on, so the tile is read from cache rather than memory.
+     * @param queries Query vectors row-major, dimension values each
+     * @param columns Points column-major, dimension rows of stride values
+     * @param out Receives the distance from query q to point i at out[q * (to - from) + i - from]
+     */
+    public static void squaredDistances(double[] queries, int dimension, double[] columns, int stride,
+                                        int from, int to, double[] out) {
+        int queryCount = dimension == 0 ? 0 : queries.length / dimension, count = to - from;
+        for (int tile = from; tile < to; tile += TILE) {
+            int tileEnd = Math.min(to, tile + TILE);
+            for (int q = 0; q < queryCount; q++) {
+                KERNEL.squaredDistances(queries, q * dimension, dimension, columns, stride,
+                                        tile, tileEnd, out, q * count + tile - from);
+            }
+        }
+    }
+
+    /**
+     * Single-precision many-to-many, laid out as the double version.
+     */
+    public static void squaredDistances(float[] queries, int dimension, float[] columns, int stride,
+                                        int from, int to, float[] out) {
+        int queryCount = dimension == 0 ? 0 : queries.length / dimension, count = to - from;
+        for (int tile = from; tile < to; tile += TILE) {
+            int tileEnd = Math.min(to, tile + TILE);
+            for (int q = 0; q < queryCount; q++) {
+                KERNEL.squaredDistances(queries, q * dimension, dimension, columns, stride,
+                                        tile, tileEnd, out, q * count + tile - from);
+            }
+        }
+    }
+
+    /**
+     * Squared distance of each point i in [from, to) to point i + shift, e.g.
+     * each grid region to its right (shift 1) or lower (shift columns) neighbour.
+     * @param out Receives the distance of point i at out[i - from]
+     */
+    public static void pairedSquaredDistances(int dimension, double[] columns, int stride, int shift,
+                                              int from, int to, double[] out) {
+        KERNEL.pairedSquaredDistances(dimension, columns, stride, shift, from, to, out, 0);
+    }
+
+    /**
+     * @return "vector" if the SIMD kernels are in use, else "scalar"
+     */
+    public static String getImplementation() {
+        return KERNEL instanceof ScalarKernel ? "scalar" : "vector";
+    }
+
+    /**
+     * Plain loops; also finishes the tails the vector kernel leaves. They run
+     * dimension by dimension over the whole range, adding into out, so each
+     * column is read front to back and the JIT can unroll the inner loop,
+     * while every point still adds its terms in dimension order.
+     */
+    static final class ScalarKernel implements Kernel {
+        @Override
+        public void squaredDistances(double[] queries, int queryOffset, int dimension, double[] columns, int stride,
+                                     int from, int to, double[] out, int outOffset) {
+            int shift = outOffset - from;
+            Arrays.fill(out, outOffset, outOffset + to - from, 0.0);
+            for (int d = 0; d < dimension; d++) {
+                double q = queries[queryOffset + d];
+                int base = d * stride;
+                for (int i = from; i < to; i++) {
+                    double diff = columns[base + i] - q;
+                    out[i + shift] += diff * diff;
+                }
+            }
+        }
+
+        @Override
+        public void squaredDistances(float[] queries, int queryOffset, int dimension, float[] columns, int stride,
+                                     int from, int to, float[] out, int outOffset) {
+            int shift = outOffset - from;
+            Arrays.fill(out, outOffset, outOffset + to - from, 0f);
+            for (int d = 0; d < dimension; d++) {
+                float q = queries[queryOffset + d];
+                int base = d * stride;
+                for (int i = from; i < to; i++) {
+                    float diff = columns[base + i] - q;
+                    out[i + shift] += diff * diff;
+                }
+            }
+        }
+
+        @Override
+        public void pairedSquaredDistances(int dimension, double[] columns, int stride, int shift,
+                                           int from, int to, double[] out, int outOffset) {
+            int offset = outOffset - from;
+            Arrays.fill(out, outOffset, outOffset + to - from, 0.0);
+            for (int d = 0; d < dimension; d++) {
+                int base = d * stride;
+                for (int i = from; i < to; i++) {
+                    double diff = columns[base + i] - columns[base + i + shift];
+                    out[i + offset] += diff * diff;
+                }
+            }
+        }
+    }
+}
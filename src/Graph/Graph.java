@@ -9,11 +9,24 @@ import java.util.*;
 /**
  * Base graph structure supporting both pathfinding and similarity tasks.
  * Can be configured as weighted/unweighted and directed/undirected.
+ *
+ * <p>Vertex, edge and obstacle counts and the degree histogram are kept up to
+ * date as the graph changes (including edges wired with Vertex.addEdge and
+ * removeEdge on its vertices, which also bump the version) and read through
+ * getStats. Like the vertex map, they are not safe against concurrent changes.
  */
 public class Graph {
     private final Map<String, Vertex> vertices = new HashMap<>();
     private final boolean isWeighted;
     private final boolean isDirected;
+    private volatile long version;   // Bumped by every change that can alter a path
+
+    // Running statistics; suspended while a builder wires vertices in parallel
+    private int[] degreeCounts = new int[1];
+    private int edgeCount;
+    private int obstacleCount;
+    private boolean statsSuspended;
+    private volatile GraphStats stats;   // Built from the counters on demand
 
     public Graph(boolean isWeighted, boolean isDirected) {
         this.isWeighted = isWeighted;
@@ -25,7 +38,13 @@ public class Graph {
      * @return Existing vertex if ID already exists
      */
     public Vertex addVertex(String id, int x, int y) {
-        return vertices.computeIfAbsent(id, k -> new Vertex(id, x, y));
+        return vertices.computeIfAbsent(id, k -> {
+            Vertex vertex = new Vertex(id, x, y);
+            vertex.owner = this;
+            countDegree(0, 1);
+            markModified();
+            return vertex;
+        });
     }
 
     /**
@@ -39,6 +58,7 @@ public class Graph {
 
         v1.addEdge(v2, isWeighted ? weight : 1.0);
         if (!isDirected) v2.addEdge(v1, isWeighted ? weight : 1.0);
+        markModified();
     }
 
     // --- Graph Operations ---
@@ -47,16 +67,123 @@ public class Graph {
         Vertex v2 = vertices.get(id2);
         if (v1 != null) v1.removeEdge(v2);
         if (!isDirected && v2 != null) v2.removeEdge(v1);
+        markModified();
     }
 
     public void removeVertex(String id) {
         Vertex removed = vertices.remove(id);
         if (removed != null) {
             vertices.values().forEach(v -> v.removeEdge(removed));
+            removed.owner = null;
+            if (!statsSuspended) {
+                countDegree(removed.getEdges().size(), -1);
+                edgeCount -= removed.getEdges().size();
+                if (removed.isObstacle()) obstacleCount--;
+            }
+            markModified();
         }
     }
 
+    /**
+     * Records a change to the graph's contents.
+     */
+    void markModified() {
+        version++;
+        stats = null;
+    }
+
+    /**
+     * Called when a vertex of this graph flips its obstacle flag. While a
+     * builder has the statistics suspended, flips may come from several
+     * threads at once, so they touch no shared state; recountStats moves the
+     * version on once for all of them.
+     */
+    void obstacleChanged(Vertex vertex) {
+        if (statsSuspended) return;
+        obstacleCount += vertex.isObstacle() ? 1 : -1;
+        markModified();
+    }
+
+    /**
+     * Called when the edge list of a vertex of this graph changes length.
+     * Edges wired straight on a Vertex change paths just as Graph.addEdge
+     * does, so they move the version on too (except while a builder has the
+     * statistics suspended and owns the graph).
+     */
+    void degreeChanged(Vertex vertex, int before, int after) {
+        if (statsSuspended || before == after) return;
+        countDegree(before, -1);
+        countDegree(after, 1);
+        edgeCount += after - before;
+        markModified();
+    }
+
+    private void countDegree(int degree, int delta) {
+        if (degree >= degreeCounts.length) {
+            degreeCounts = Arrays.copyOf(degreeCounts, Math.max(degree + 1, degreeCounts.length * 2));
+        }
+        degreeCounts[degree] += delta;
+    }
+
+    /**
+     * Stops maintaining the statistics, for builders that wire vertices from
+     * several threads; recountStats resumes them.
+     */
+    void suspendStats() {
+        statsSuspended = true;
+    }
+
+    /**
+     * Recounts the statistics from scratch and resumes maintaining them. The
+     * version moves on once, for everything the builder changed meanwhile.
+     */
+    void recountStats() {
+        degreeCounts = new int[1];
+        edgeCount = 0;
+        obstacleCount = 0;
+        for (Vertex v : vertices.values()) {
+            countDegree(v.getEdges().size(), 1);
+            edgeCount += v.getEdges().size();
+            if (v.isObstacle()) obstacleCount++;
+        }
+        statsSuspended = false;
+        markModified();
+    }
+
+    /**
+     * Quick reachability test, answered without searching.
+     * @return false only if no path from start to end can exist; graphs that
+     *         keep no reachability index always answer true
+     */
+    public boolean mayReach(Vertex start, Vertex end) {
+        return true;
+    }
+
     // --- Accessors ---
+
+    /**
+     * Content version, for caches keyed on the graph's state. Every edit bumps
+     * it: changes made through Graph, obstacle flips, and edges wired directly
+     * with Vertex.addEdge/removeEdge. The exception is wiring done while a
+     * builder has the statistics suspended; the version moves on once when the
+     * builder resumes them.
+     */
+    public long getVersion() { return version; }
     public Vertex getVertex(String id) { return vertices.get(id); }
+    public int getVertexCount() { return vertices.size(); }
+
+    /**
+     * Current statistics, without visiting the vertices.
+     * @throws IllegalStateException while a builder has them suspended
+     */
+    public GraphStats getStats() {
+        if (statsSuspended) throw new IllegalStateException("Graph statistics are being rebuilt");
+        GraphStats current = stats;
+        if (current == null) {
+            current = new GraphStats(vertices.size(), edgeCount, obstacleCount, degreeCounts, version);
+            stats = current;
+        }
+        return current;
+    }
     public List<Vertex> getVertices() { return new ArrayList<>(vertices.values()); }
 }
\ No newline at end of file
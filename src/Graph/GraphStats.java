@@ -0,0 +1,90 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ * Immutable summary of a graph's size and degree distribution, as maintained
+ * by Graph. Reading it costs nothing per vertex, so one graph can be profiled
+ * against many others cheaply.
+ *
+ * <p>A vertex's degree is the length of its edge list, so an undirected
+ * connection counts once at each end and edgeCount is the number of edge
+ * list entries.
+ */
+public class GraphStats {
+    private final int vertexCount;
+    private final int edgeCount;
+    private final int obstacleCount;
+    private final int[] degreeCounts;   // Vertices per degree, trimmed after the highest degree in use
+    private final long version;         // Graph version the stats describe
+
+    GraphStats(int vertexCount, int edgeCount, int obstacleCount, int[] degreeCounts, long version) {
+        int limit = degreeCounts.length;
+        while (limit > 0 && degreeCounts[limit - 1] == 0) limit--;
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.obstacleCount = obstacleCount;
+        this.degreeCounts = Arrays.copyOf(degreeCounts, limit);
+        this.version = version;
+    }
+
+    // --- Key Calculations ---
+
+    /**
+     * Histogram intersection of two degree distributions over the combined
+     * vertex count (0 = no overlap, 0.5 = same distribution), in time
+     * proportional to the number of distinct degrees.
+     */
+    public double degreeOverlap(GraphStats other) {
+        return degreeOverlap(degreeCounts, vertexCount, other.degreeCounts, other.vertexCount);
+    }
+
+    /**
+     * Histogram intersection of two degree histograms over the combined vertex
+     * count; the structural measure shared by the similarity metrics.
+     * @param counts1 Vertices per degree in the first graph
+     * @param vertices1 Vertex count of the first graph
+     * @return 0 = no overlap, 0.5 = same distribution
+     */
+    public static double degreeOverlap(int[] counts1, int vertices1, int[] counts2, int vertices2) {
+        int limit = Math.min(counts1.length, counts2.length);
+        double intersection = 0;
+        for (int degree = 0; degree < limit; degree++) {
+            intersection += Math.min(counts1[degree], counts2[degree]);
+        }
+        int union = vertices1 + vertices2;
+        return union > 0 ? intersection / union : 0.0;
+    }
+
+    /**
+     * @return Mean edge list length, or 0 for an empty graph
+     */
+    public double getAverageDegree() {
+        return vertexCount == 0 ? 0 : (double) edgeCount / vertexCount;
+    }
+
+    // --- Accessors ---
+    public int getVertexCount() { return vertexCount; }
+    public int getEdgeCount() { return edgeCount; }
+    public int getObstacleCount() { return obstacleCount; }
+    public long getVersion() { return version; }
+
+    /** @return Number of vertices with the given degree */
+    public int degreeCount(int degree) { return degree >= 0 && degree < degreeCounts.length ? degreeCounts[degree] : 0; }
+
+    /** @return One past the highest degree any vertex has (0 for an empty graph) */
+    public int degreeLimit() { return degreeCounts.length; }
+
+    /** @return Highest degree of any vertex, or -1 for an empty graph */
+    public int getMaxDegree() { return degreeCounts.length - 1; }
+
+    @Override
+    public String toString() {
+        return String.format("%d vertices, %d edges, %d obstacles, max degree %d",
+                             vertexCount, edgeCount, obstacleCount, getMaxDegree());
+    }
+}
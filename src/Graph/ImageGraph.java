@@ -5,87 +5,265 @@
 package Graph;
 
 import java.awt.image.BufferedImage;
-import java.awt.*;
+import java.util.BitSet;
 
 /**
  * Converts images into graphs where vertices represent regions
  * and edges capture spatial-feature relationships.
+ * Region features come from summed-area tables, so the pixels are read once
+ * per image no matter how many region sizes are tried.
+ *
+ * <p>The graph also labels the connected components of its passable regions,
+ * so queries between separated regions are rejected without a search. The
+ * labels follow obstacle flips; structural edits through Graph turn them off.
  */
 public class ImageGraph extends Graph {
+    /** Fraction of dark pixels above which a region is impassable */
+    private static final double OBSTACLE_RATIO = 0.7;
+
     private final BufferedImage image;
+    private final IntegralImage integral;
     private final int regionSize;
+    private ConnectivityIndex connectivity;    // Components of the passable regions
+    private long connectivityVersion;          // Graph version the labels describe
 
     public ImageGraph(BufferedImage image, int regionSize) {
+        this(image, regionSize, 1);
+    }
+
+    /**
+     * Builds the graph using several threads.
+     * @param image Source image
+     * @param regionSize Region edge length in pixels
+     * @param parallelism Worker threads (1 = sequential); the graph is identical either way
+     */
+    public ImageGraph(BufferedImage image, int regionSize, int parallelism) {
+        this(image, IntegralImage.of(image, parallelism), regionSize, parallelism);
+    }
+
+    /**
+     * Rebuilds a graph from previously computed integral tables, e.g. when only
+     * the region size changes.
+     * @param image Source image (kept for display)
+     * @param integral Summed-area tables of the same image
+     * @param regionSize Region edge length in pixels
+     */
+    public ImageGraph(BufferedImage image, IntegralImage integral, int regionSize) {
+        this(image, integral, regionSize, 1);
+    }
+
+    /**
+     * Rebuilds a graph from integral tables using several threads.
+     * @param parallelism Worker threads (1 = sequential); the graph is identical either way
+     */
+    public ImageGraph(BufferedImage image, IntegralImage integral, int regionSize, int parallelism) {
         super(true, false); // Weighted, undirected
         this.image = image;
+        this.integral = integral;
         this.regionSize = regionSize;
-        buildGraph();
+        buildGraph(parallelism);
     }
 
-    private void buildGraph() {
+    /**
+     * Builds the graph in horizontal bands of region rows.
+     * Vertices are registered in row-major order first, since the vertex map
+     * isn't thread-safe. Each band then fills in features, and after that each
+     * band works out the feature distance of its regions to their right and
+     * lower neighbours in one batch (DistanceKernels); a pair's distance serves
+     * both directions. Last, each band wires the edge lists of its own vertices
+     * only, reading the finished distances of neighbours in adjacent bands.
+     * Because a vertex's edge list is written by exactly one band in a fixed
+     * order, the result is the same for any parallelism and seams need no
+     * separate stitching.
+     */
+    private void buildGraph(int parallelism) {
+        int columns = (image.getWidth() + regionSize - 1) / regionSize;
+        int rows = (image.getHeight() + regionSize - 1) / regionSize;
+
         // Create vertices for each region
-        for (int y = 0; y < image.getHeight(); y += regionSize) {
-            for (int x = 0; x < image.getWidth(); x += regionSize) {
-                Vertex v = addVertex(x + "," + y, x, y);
-                v.setFeatures(calculateRegionFeatures(x, y));
-                v.setObstacle(isObstacleRegion(x, y));
+        Vertex[] regions = new Vertex[columns * rows];
+        for (int row = 0, id = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++, id++) {
+                int x = col * regionSize, y = row * regionSize;
+                regions[id] = addVertex(x + "," + y, x, y);
             }
         }
 
+        // Bands flip obstacles and wire edges concurrently, so count once at the end
+        suspendStats();
+        int n = regions.length;
+        double[] featureColumns = new double[3 * n];   // Column-major copy for the distance kernels
+        BandExecutor.forEachBand(rows, parallelism, (from, to) -> {
+            for (int id = from * columns; id < to * columns; id++) {
+                Vertex v = regions[id];
+                double[] features = integral.meanColor(v.getX(), v.getY(), regionSize);
+                v.setFeatures(features);
+                v.setObstacle(isObstacleRegion(integral, regionSize, v.getX(), v.getY()));
+                for (int c = 0; c < 3; c++) featureColumns[c * n + id] = features[c];
+            }
+        });
+
+        // Squared feature distance of each region to its right and lower neighbour
+        // (entries for the last column and row are unused)
+        double[] right = new double[n], down = new double[n];
+        BandExecutor.forEachBand(rows, parallelism, (from, to) -> {
+            int start = from * columns, end = to * columns;
+            double[] batch = new double[end - start];
+            DistanceKernels.pairedSquaredDistances(3, featureColumns, n, 1, start, Math.min(end, n - 1), batch);
+            System.arraycopy(batch, 0, right, start, Math.min(end, n - 1) - start);
+            int downEnd = Math.min(end, n - columns);
+            if (downEnd > start) {
+                DistanceKernels.pairedSquaredDistances(3, featureColumns, n, columns, start, downEnd, batch);
+                System.arraycopy(batch, 0, down, start, downEnd - start);
+            }
+        });
+
         // Connect adjacent regions with graph-based weights
-        getVertices().forEach(v -> {
-            int x = v.getX(), y = v.getY();
-            connectIfValid(v, x + regionSize, y);
-            connectIfValid(v, x - regionSize, y); 
-            connectIfValid(v, x, y + regionSize);
-            connectIfValid(v, x, y - regionSize);
+        BandExecutor.forEachBand(rows, parallelism, (from, to) -> {
+            for (int row = from; row < to; row++) {
+                for (int col = 0; col < columns; col++) {
+                    int id = row * columns + col;
+                    Vertex v = regions[id];
+                    if (col < columns - 1) connectIfValid(v, regions[id + 1], right[id]);
+                    if (col > 0) connectIfValid(v, regions[id - 1], right[id - 1]);
+                    if (row < rows - 1) connectIfValid(v, regions[id + columns], down[id]);
+                    if (row > 0) connectIfValid(v, regions[id - columns], down[id - columns]);
+                }
+            }
         });
+
+        recountStats();
+        connectivity = new ConnectivityIndex(regions, regionSize, columns);
+        connectivityVersion = getVersion();
+    }
+
+    /**
+     * Adds the source's outgoing edges to one neighbour. The undirected wiring
+     * links a pair once from each side whose far end is passable, so the
+     * source gets one edge per passable endpoint (none between two obstacles).
+     */
+    private void connectIfValid(Vertex source, Vertex dest, double squaredFeatureDistance) {
+        double weight = source.distanceTo(dest) *
+                      (1 + Math.sqrt(squaredFeatureDistance)); // Graph-enhanced weight
+        if (!dest.isObstacle()) source.addEdge(dest, weight);
+        if (!source.isObstacle()) source.addEdge(dest, weight);
     }
 
-    private void connectIfValid(Vertex source, int x, int y) {
-        Vertex dest = getVertex(x + "," + y);
-        if (dest != null && !dest.isObstacle()) {
-            double weight = source.distanceTo(dest) * 
-                          (1 + source.featureDistance(dest)); // Graph-enhanced weight
-            addEdge(source.getId(), dest.getId(), weight);
+    // --- Reachability ---
+
+    /**
+     * Keeps the component labels in step with obstacle flips, as long as no
+     * other change has been made since they were built.
+     */
+    @Override
+    void obstacleChanged(Vertex vertex) {
+        boolean current = getConnectivity() != null;
+        super.obstacleChanged(vertex);
+        if (current) {
+            connectivity.obstacleChanged(vertex);
+            connectivityVersion = getVersion();
         }
     }
 
-    private double[] calculateRegionFeatures(int x, int y) {
-        double[] features = new double[3]; // RGB averages
-        int count = 0;
-        
-        for (int dy = 0; dy < regionSize && y + dy < image.getHeight(); dy++) {
-            for (int dx = 0; dx < regionSize && x + dx < image.getWidth(); dx++) {
-                Color c = new Color(image.getRGB(x + dx, y + dy));
-                features[0] += c.getRed();
-                features[1] += c.getGreen();
-                features[2] += c.getBlue();
-                count++;
+    /**
+     * Answers in constant time from the component labels.
+     */
+    @Override
+    public boolean mayReach(Vertex start, Vertex end) {
+        ConnectivityIndex index = getConnectivity();
+        return index == null || index.connected(start, end);
+    }
+
+    /**
+     * @return Component labels of the passable regions, or null once vertices
+     *         or edges have been added or removed through Graph
+     */
+    public ConnectivityIndex getConnectivity() {
+        return connectivity != null && connectivityVersion == getVersion() ? connectivity : null;
+    }
+
+    /**
+     * Copies the regions as they are now, including obstacle flips and edge
+     * edits, into an indexed graph with the same edge weights.
+     * @return Indexed graph with one id per region in row-major order
+     * @throws IllegalArgumentException if a region is missing or an edge
+     *         leads off the region grid
+     */
+    public IndexedGraph snapshot() {
+        RegionSnapshot snapshot = new RegionSnapshot(this);
+        assert snapshot.matches(this) : "Snapshot differs from the live graph";
+        return snapshot;
+    }
+
+    /**
+     * Builds the same region graph directly in compressed-sparse-row form,
+     * without creating Vertex or Edge objects.
+     * @param image Source image
+     * @param regionSize Region edge length in pixels
+     * @return CSR graph with one id per region in row-major order
+     */
+    public static CompactGraph buildCompactGraph(BufferedImage image, int regionSize) {
+        return buildCompactGraph(IntegralImage.of(image), regionSize);
+    }
+
+    /**
+     * Builds a CSR graph from previously computed integral tables.
+     */
+    public static CompactGraph buildCompactGraph(IntegralImage integral, int regionSize) {
+        BitSet obstacles = new BitSet();
+        double[] features = extractRegionFeatures(integral, regionSize, obstacles);
+        return CompactGraph.ofGrid(integral.getWidth(), integral.getHeight(), regionSize, 3, features, obstacles);
+    }
+
+    /**
+     * Builds an implicit grid graph: only the feature pass runs, and edges are
+     * generated on demand during searches instead of being stored.
+     * @param image Source image
+     * @param regionSize Region edge length in pixels
+     * @return Edge-less grid graph with one id per region in row-major order
+     */
+    public static ImplicitGridGraph buildImplicitGraph(BufferedImage image, int regionSize) {
+        return buildImplicitGraph(IntegralImage.of(image), regionSize);
+    }
+
+    /**
+     * Builds an implicit grid graph from previously computed integral tables.
+     */
+    public static ImplicitGridGraph buildImplicitGraph(IntegralImage integral, int regionSize) {
+        BitSet obstacles = new BitSet();
+        double[] features = extractRegionFeatures(integral, regionSize, obstacles);
+        return new ImplicitGridGraph(integral.getWidth(), integral.getHeight(), regionSize, 3, features, obstacles);
+    }
+
+    /**
+     * Computes RGB features for every region in row-major order.
+     * @param obstacles Receives the obstacle flag of each region id
+     * @return Row-major feature block, 3 values per region
+     */
+    private static double[] extractRegionFeatures(IntegralImage integral, int regionSize, BitSet obstacles) {
+        int columns = (integral.getWidth() + regionSize - 1) / regionSize;
+        int rows = (integral.getHeight() + regionSize - 1) / regionSize;
+        double[] features = new double[columns * rows * 3];
+
+        for (int row = 0, id = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++, id++) {
+                int x = col * regionSize, y = row * regionSize;
+                System.arraycopy(integral.meanColor(x, y, regionSize), 0, features, id * 3, 3);
+                obstacles.set(id, isObstacleRegion(integral, regionSize, x, y));
             }
         }
-        
-        if (count > 0) {
-            features[0] /= count;
-            features[1] /= count;
-            features[2] /= count;
-        }
         return features;
     }
 
-    private boolean isObstacleRegion(int x, int y) {
-        int darkPixels = 0;
-        int total = 0;
-        
-        for (int dy = 0; dy < regionSize && y + dy < image.getHeight(); dy++) {
-            for (int dx = 0; dx < regionSize && x + dx < image.getWidth(); dx++) {
-                Color c = new Color(image.getRGB(x + dx, y + dy));
-                if ((c.getRed() + c.getGreen() + c.getBlue()) / 3 < 50) darkPixels++;
-                total++;
-            }
-        }
-        return (double)darkPixels / total > 0.7;
+    /**
+     * A region is an obstacle when most of its pixels are dark.
+     */
+    static boolean isObstacleRegion(IntegralImage integral, int regionSize, int x, int y) {
+        return (double) integral.darkPixels(x, y, regionSize)
+             / integral.pixelCount(x, y, regionSize) > OBSTACLE_RATIO;
     }
 
     public BufferedImage getImage() { return image; }
-}
\ No newline at end of file
+    public IntegralImage getIntegralImage() { return integral; }
+    public int getRegionSize() { return regionSize; }
+}
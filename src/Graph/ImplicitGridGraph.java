@@ -0,0 +1,94 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import java.util.BitSet;
+
+/**
+ * Edge-less region grid: only per-region features and an obstacle bitset are
+ * stored, and neighbours and weights are derived on demand from the grid
+ * coordinates. Memory grows with the number of regions, not edges.
+ *
+ * <p>Weights match ImageGraph: distanceTo * (1 + featureDistance).
+ */
+public class ImplicitGridGraph implements IndexedGraph {
+    private final int imageWidth, imageHeight;
+    private final int regionSize;
+    private final int columns, rows;
+    private final int featureDimension;
+    private final double[] features;        // Row-major feature block
+    private final BitSet obstacles;
+
+    /**
+     * @param imageWidth Source image width in pixels
+     * @param imageHeight Source image height in pixels
+     * @param regionSize Region edge length in pixels
+     * @param featureDimension Number of feature values per region
+     * @param features Row-major features, featureDimension per region
+     * @param obstacles Obstacle flag per region id
+     */
+    public ImplicitGridGraph(int imageWidth, int imageHeight, int regionSize,
+                             int featureDimension, double[] features, BitSet obstacles) {
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+        this.regionSize = regionSize;
+        this.columns = (imageWidth + regionSize - 1) / regionSize;
+        this.rows = (imageHeight + regionSize - 1) / regionSize;
+        this.featureDimension = featureDimension;
+        this.features = features;
+        this.obstacles = obstacles;
+        if (features.length != columns * rows * featureDimension) {
+            throw new IllegalArgumentException("Feature array doesn't match the region grid");
+        }
+    }
+
+    // --- Adjacency (generated on demand) ---
+
+    @Override
+    public int getDegree(int id) {
+        int col = id % columns, row = id / columns;
+        return (col < columns - 1 ? 1 : 0) + (col > 0 ? 1 : 0)
+             + (row < rows - 1 ? 1 : 0) + (row > 0 ? 1 : 0);
+    }
+
+    @Override
+    public int getNeighbor(int id, int index) {
+        int col = id % columns, row = id / columns;
+        // Walk the slots right, left, down, up, skipping those off the grid
+        if (col < columns - 1 && index-- == 0) return id + 1;
+        if (col > 0 && index-- == 0) return id - 1;
+        if (row < rows - 1 && index-- == 0) return id + columns;
+        if (row > 0 && index == 0) return id - columns;
+        throw new IndexOutOfBoundsException("Neighbour slot out of range");
+    }
+
+    @Override
+    public double getWeight(int id, int index) {
+        int neighbor = getNeighbor(id, index);
+        return distance(id, neighbor) * (1 + featureDistance(id, neighbor));
+    }
+
+    /**
+     * Visual similarity between two regions (0 = identical).
+     */
+    @Override
+    public double featureDistance(int a, int b) {
+        return Math.sqrt(DistanceKernels.squaredDistance(features, a * featureDimension,
+                                                         features, b * featureDimension, featureDimension));
+    }
+
+    // --- Accessors ---
+    @Override public int getVertexCount() { return columns * rows; }
+    @Override public int getX(int id) { return (id % columns) * regionSize; }
+    @Override public int getY(int id) { return (id / columns) * regionSize; }
+    @Override public boolean isObstacle(int id) { return obstacles.get(id); }
+    @Override public int getFeatureDimension() { return featureDimension; }
+    @Override public double getFeature(int id, int index) { return features[id * featureDimension + index]; }
+    @Override public int getRegionSize() { return regionSize; }
+    @Override public int getColumns() { return columns; }
+    @Override public int getRows() { return rows; }
+    @Override public int getImageWidth() { return imageWidth; }
+    @Override public int getImageHeight() { return imageHeight; }
+}
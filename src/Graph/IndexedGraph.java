@@ -0,0 +1,122 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Region grid graph addressed by int ids (row-major) instead of Vertex objects.
+ * Implemented by the stored CSR graph and by the implicit, edge-less grid.
+ *
+ * <p>Every region links to its in-bounds 4-neighbours in the order right, left,
+ * down, up, one slot per neighbour. Obstacles are a region property that
+ * searches skip. A snapshot of an edited ImageGraph (ImageGraph.snapshot)
+ * leaves out links whose edges were removed and lists edges added to other
+ * regions after the 4-neighbours.
+ */
+public interface IndexedGraph {
+
+    // --- Regions ---
+    int getVertexCount();
+    int getX(int id);
+    int getY(int id);
+    boolean isObstacle(int id);
+    int getFeatureDimension();
+    double getFeature(int id, int index);
+
+    /**
+     * Copies the features of one region into a new array.
+     */
+    default double[] getFeatures(int id) {
+        double[] copy = new double[getFeatureDimension()];
+        for (int i = 0; i < copy.length; i++) copy[i] = getFeature(id, i);
+        return copy;
+    }
+
+    // --- Adjacency ---
+    int getDegree(int id);
+
+    /**
+     * @param index Neighbour slot, 0 to getDegree(id) - 1
+     * @return Region id of the neighbour
+     */
+    int getNeighbor(int id, int index);
+
+    /**
+     * @param index Neighbour slot, 0 to getDegree(id) - 1
+     * @return Traversal cost to that neighbour
+     */
+    double getWeight(int id, int index);
+
+    // --- Grid Geometry ---
+    int getRegionSize();
+    int getColumns();
+    int getRows();
+    int getImageWidth();
+    int getImageHeight();
+
+    /**
+     * Finds the region whose top-left corner is at the given pixel.
+     * @return Region id, or -1 if no region starts there
+     */
+    default int vertexAt(int x, int y) {
+        int size = getRegionSize();
+        if (x < 0 || y < 0 || x % size != 0 || y % size != 0) return -1;
+        int col = x / size, row = y / size;
+        if (col >= getColumns() || row >= getRows()) return -1;
+        return row * getColumns() + col;
+    }
+
+    // --- Key Calculations ---
+
+    /**
+     * Physical distance between two regions (Euclidean).
+     */
+    default double distance(int a, int b) {
+        return Math.hypot(getX(a) - getX(b), getY(a) - getY(b));
+    }
+
+    /**
+     * Visual similarity between two regions (0 = identical).
+     */
+    default double featureDistance(int a, int b) {
+        return DistanceKernels.distance(getFeatures(a), getFeatures(b));
+    }
+
+    // --- Vertex/Edge View ---
+
+    /**
+     * Creates a detached Vertex view of a region, including its outgoing edges.
+     * Neighbour vertices in the view carry features but no edges of their own.
+     */
+    default Vertex toVertex(int id) {
+        Vertex v = detachedVertex(id);
+        for (int i = 0; i < getDegree(id); i++) {
+            v.addEdge(detachedVertex(getNeighbor(id, i)), getWeight(id, i));
+        }
+        return v;
+    }
+
+    /**
+     * Wraps region ids as a list of Vertex views created on access.
+     */
+    default List<Vertex> asVertexList(int[] ids) {
+        return new AbstractList<Vertex>() {
+            @Override public Vertex get(int index) { return detachedVertex(ids[index]); }
+            @Override public int size() { return ids.length; }
+        };
+    }
+
+    /**
+     * Creates a Vertex carrying a region's position, features and obstacle flag.
+     */
+    default Vertex detachedVertex(int id) {
+        Vertex v = new Vertex(getX(id) + "," + getY(id), getX(id), getY(id));
+        v.setFeatures(getFeatures(id));
+        v.setObstacle(isObstacle(id));
+        return v;
+    }
+}
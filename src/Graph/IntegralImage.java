@@ -0,0 +1,230 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Summed-area tables of an image's red, green and blue channels and of its
+ * dark pixels, built from a single bulk pass over the pixel data.
+ * The sum over any rectangle is then an O(1) lookup, so region features and
+ * obstacle ratios can be recomputed for any region size without rereading pixels.
+ *
+ * <p>Tables use int arithmetic that is allowed to wrap: rectangle sums are
+ * differences of four entries, which stay exact as long as the rectangle's own
+ * sum fits in an int (any region up to ~2900 pixels square).
+ */
+public class IntegralImage {
+    /** Pixels whose mean channel value is below this count as dark */
+    public static final int DARK_THRESHOLD = 50;
+
+    private final int width, height;
+    private final int stride;               // width + 1
+    private final int[] red, green, blue, dark;
+
+    private IntegralImage(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.stride = width + 1;
+        int size = stride * (height + 1);
+        this.red = new int[size];
+        this.green = new int[size];
+        this.blue = new int[size];
+        this.dark = new int[size];
+    }
+
+    /**
+     * Builds the tables with one read of the image's raster.
+     * @param image Source image
+     * @return Integral image covering every pixel
+     */
+    public static IntegralImage of(BufferedImage image) {
+        return of(image, 1);
+    }
+
+    /**
+     * Builds the tables in two parallel passes: row bands decode pixels and
+     * take horizontal prefix sums, then column stripes accumulate vertically.
+     * Integer sums are exact, so the result is identical for any parallelism.
+     * @param image Source image
+     * @param parallelism Worker threads (1 = sequential)
+     * @return Integral image covering every pixel
+     */
+    public static IntegralImage of(BufferedImage image, int parallelism) {
+        IntegralImage integral = new IntegralImage(image.getWidth(), image.getHeight());
+        PixelReader reader = directReader(image);
+        if (reader == null) {
+            // getRGB goes through the colour model, which isn't safe to share across threads
+            reader = (y, rgb) -> image.getRGB(0, y, rgb.length, 1, rgb, 0, rgb.length);
+            parallelism = 1;
+        }
+
+        PixelReader rows = reader;
+        BandExecutor.forEachBand(integral.height, parallelism, (from, to) -> {
+            int[] row = new int[integral.width];
+            for (int y = from; y < to; y++) {
+                rows.readRow(y, row);
+                integral.accumulateRow(y, row);
+            }
+        });
+        BandExecutor.forEachBand(integral.width, parallelism, integral::accumulateColumns);
+        return integral;
+    }
+
+    /**
+     * Stores horizontal prefix sums of one row of packed RGB pixels.
+     */
+    private void accumulateRow(int y, int[] rgb) {
+        int r = 0, g = 0, b = 0, d = 0;
+        int at = (y + 1) * stride + 1;
+        for (int x = 0; x < width; x++, at++) {
+            int p = rgb[x];
+            int pr = (p >> 16) & 0xFF, pg = (p >> 8) & 0xFF, pb = p & 0xFF;
+            r += pr;
+            g += pg;
+            b += pb;
+            if ((pr + pg + pb) / 3 < DARK_THRESHOLD) d++;
+            red[at] = r;
+            green[at] = g;
+            blue[at] = b;
+            dark[at] = d;
+        }
+    }
+
+    /**
+     * Turns row prefix sums into full rectangle sums for columns [from, to).
+     */
+    private void accumulateColumns(int from, int to) {
+        for (int y = 2; y <= height; y++) {
+            int at = y * stride + 1 + from, above = at - stride;
+            for (int x = from; x < to; x++, at++, above++) {
+                red[at] += red[above];
+                green[at] += green[above];
+                blue[at] += blue[above];
+                dark[at] += dark[above];
+            }
+        }
+    }
+
+    // --- Region Queries ---
+
+    /**
+     * Average RGB of the region starting at (x, y), clipped to the image.
+     * @return {red, green, blue} means, or zeros for an empty region
+     */
+    public double[] meanColor(int x, int y, int size) {
+        double[] features = new double[3];
+        int count = pixelCount(x, y, size);
+        if (count > 0) {
+            features[0] = (double) regionSum(red, x, y, size) / count;
+            features[1] = (double) regionSum(green, x, y, size) / count;
+            features[2] = (double) regionSum(blue, x, y, size) / count;
+        }
+        return features;
+    }
+
+    /**
+     * Average RGB of any rectangle [x0, x1) x [y0, y1), clipped to the image,
+     * e.g. one cell when downscaling the whole image.
+     * @return {red, green, blue} means, or zeros for an empty rectangle
+     */
+    public double[] meanColor(int x0, int y0, int x1, int y1) {
+        x1 = Math.min(x1, width);
+        y1 = Math.min(y1, height);
+        double[] features = new double[3];
+        int count = Math.max(0, x1 - x0) * Math.max(0, y1 - y0);
+        if (count > 0) {
+            features[0] = (double) rectangleSum(red, x0, y0, x1, y1) / count;
+            features[1] = (double) rectangleSum(green, x0, y0, x1, y1) / count;
+            features[2] = (double) rectangleSum(blue, x0, y0, x1, y1) / count;
+        }
+        return features;
+    }
+
+    /**
+     * Number of dark pixels in the region starting at (x, y), clipped to the image.
+     */
+    public int darkPixels(int x, int y, int size) {
+        return regionSum(dark, x, y, size);
+    }
+
+    /**
+     * Number of pixels in the region starting at (x, y), clipped to the image.
+     */
+    public int pixelCount(int x, int y, int size) {
+        return (Math.min(x + size, width) - x) * (Math.min(y + size, height) - y);
+    }
+
+    private int regionSum(int[] table, int x, int y, int size) {
+        return rectangleSum(table, x, y, Math.min(x + size, width), Math.min(y + size, height));
+    }
+
+    private int rectangleSum(int[] table, int x0, int y0, int x1, int y1) {
+        return table[y1 * stride + x1] - table[y0 * stride + x1]
+             - table[y1 * stride + x0] + table[y0 * stride + x0];
+    }
+
+    // --- Accessors ---
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    // ======================
+    // Bulk Pixel Access
+    // ======================
+
+    /**
+     * Reads one image row as packed 0xRRGGBB values.
+     */
+    private interface PixelReader {
+        void readRow(int y, int[] rgb);
+    }
+
+    /**
+     * Picks a reader that copies straight out of the DataBuffer for the common
+     * sRGB layouts. The values match what getRGB would return.
+     * @return Thread-safe reader, or null if the layout needs getRGB
+     */
+    private static PixelReader directReader(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        int width = image.getWidth();
+        int tx = -raster.getSampleModelTranslateX(), ty = -raster.getSampleModelTranslateY();
+
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB: {
+                int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+                int base = raster.getDataBuffer().getOffset();
+                int scanline = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+                return (y, rgb) -> {
+                    int start = base + (y + ty) * scanline + tx;
+                    for (int x = 0; x < width; x++) rgb[x] = data[start + x] & 0xFFFFFF;
+                };
+            }
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR: {
+                byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+                ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+                int base = raster.getDataBuffer().getOffset();
+                int scanline = sm.getScanlineStride(), pixel = sm.getPixelStride();
+                int[] bands = sm.getBandOffsets(); // Raster bands are R, G, B(, A)
+                return (y, rgb) -> {
+                    int i = base + (y + ty) * scanline + tx * pixel;
+                    for (int x = 0; x < width; x++, i += pixel) {
+                        rgb[x] = (data[i + bands[0]] & 0xFF) << 16
+                               | (data[i + bands[1]] & 0xFF) << 8
+                               | (data[i + bands[2]] & 0xFF);
+                    }
+                };
+            }
+            default:
+                return null;
+        }
+    }
+}
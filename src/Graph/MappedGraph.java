@@ -0,0 +1,278 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+/**
+ * Region graph read straight from a binary graph file through a memory map.
+ * Opening one costs a header check and a checksum pass; regions, features
+ * and edges are then read from the mapped file on demand, so nothing is
+ * decoded into heap objects and the OS page cache is shared between runs.
+ *
+ * <p>File layout, all little-endian, each section starting on an 8-byte boundary:
+ * <pre>
+ *   header   magic, format version, header size, image width and height,
+ *            region size, columns, rows, vertex count, feature dimension,
+ *            edge count, CRC32 of the body, body length
+ *   features double[vertexCount * featureDimension], row-major
+ *   obstacle long[(vertexCount + 63) / 64], bit id % 64 of word id / 64
+ *   xs, ys   int[vertexCount], pixel position of each region
+ *   offsets  int[vertexCount + 1], edges of v are [offsets[v], offsets[v + 1])
+ *   targets  int[edgeCount]
+ *   weights  float[edgeCount]
+ * </pre>
+ * The format version is bumped whenever the layout changes; older files are
+ * rejected rather than misread.
+ */
+public class MappedGraph implements IndexedGraph {
+    /** Format version written by this class */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x46474750;    // "PGGF" as little-endian bytes
+    private static final int HEADER_SIZE = 64;
+
+    private final File file;
+    private final int imageWidth, imageHeight;
+    private final int regionSize;
+    private final int columns, rows;
+    private final int vertexCount;
+    private final int featureDimension;
+    private final DoubleBuffer features;
+    private final LongBuffer obstacles;
+    private final IntBuffer xs, ys;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final FloatBuffer weights;
+
+    private MappedGraph(File file, MappedByteBuffer map, int[] header) {
+        this.file = file;
+        this.imageWidth = header[0];
+        this.imageHeight = header[1];
+        this.regionSize = header[2];
+        this.columns = header[3];
+        this.rows = header[4];
+        this.vertexCount = header[5];
+        this.featureDimension = header[6];
+        int edgeCount = header[7];
+
+        int position = HEADER_SIZE;
+        features = section(map, position, 8L * vertexCount * featureDimension).asDoubleBuffer();
+        position = next(position, 8L * vertexCount * featureDimension);
+        obstacles = section(map, position, 8L * words(vertexCount)).asLongBuffer();
+        position = next(position, 8L * words(vertexCount));
+        xs = section(map, position, 4L * vertexCount).asIntBuffer();
+        position = next(position, 4L * vertexCount);
+        ys = section(map, position, 4L * vertexCount).asIntBuffer();
+        position = next(position, 4L * vertexCount);
+        offsets = section(map, position, 4L * (vertexCount + 1)).asIntBuffer();
+        position = next(position, 4L * (vertexCount + 1));
+        targets = section(map, position, 4L * edgeCount).asIntBuffer();
+        position = next(position, 4L * edgeCount);
+        weights = section(map, position, 4L * edgeCount).asFloatBuffer();
+    }
+
+    // --- Reading ---
+
+    /**
+     * Maps a graph file after checking its header and checksum.
+     * @throws IOException if the file is not a graph file of this format, or is damaged
+     */
+    public static MappedGraph open(File file) throws IOException {
+        return open(file, true);
+    }
+
+    /**
+     * Maps a graph file.
+     * @param verify Whether to check the body checksum; skipping it avoids
+     *               reading the whole file up front, for files known to be intact
+     * @throws IOException if the header is invalid, or the checksum is checked and wrong
+     */
+    public static MappedGraph open(File file, boolean verify) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new IOException("Not a graph file: " + file);
+            if (size > Integer.MAX_VALUE) throw new IOException("Graph file too large to map: " + file);
+
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.getInt(0) != MAGIC) throw new IOException("Not a graph file: " + file);
+            int version = map.getInt(4);
+            if (version != FORMAT_VERSION) throw new IOException("Unsupported graph file version " + version + ": " + file);
+            if (map.getInt(8) != HEADER_SIZE) throw new IOException("Damaged graph file header: " + file);
+
+            int[] header = new int[8];
+            for (int i = 0; i < header.length; i++) header[i] = map.getInt(12 + 4 * i);
+            int checksum = map.getInt(44);
+            long bodyLength = map.getLong(48);
+            if (bodyLength != size - HEADER_SIZE || bodyLength != bodyLength(header[5], header[6], header[7])
+                || header[5] != header[3] * header[4]) {
+                throw new IOException("Damaged graph file header: " + file);
+            }
+
+            if (verify) {
+                CRC32 crc = new CRC32();
+                ByteBuffer body = map.duplicate();
+                body.position(HEADER_SIZE);
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) throw new IOException("Graph file checksum mismatch: " + file);
+            }
+            return new MappedGraph(file, map, header);
+        }
+    }
+
+    private static ByteBuffer section(MappedByteBuffer map, int position, long length) {
+        ByteBuffer view = map.duplicate();
+        view.position(position);
+        view.limit(position + (int) length);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // --- Writing ---
+
+    /**
+     * Writes an indexed graph (CSR, implicit or mapped) to a graph file. The
+     * file is replaced only once it has been written completely.
+     */
+    public static void write(IndexedGraph graph, File file) throws IOException {
+        int n = graph.getVertexCount(), dim = graph.getFeatureDimension();
+        int edgeCount = 0;
+        for (int id = 0; id < n; id++) edgeCount += graph.getDegree(id);
+        long bodyLength = bodyLength(n, dim, edgeCount);
+        if (HEADER_SIZE + bodyLength > Integer.MAX_VALUE) throw new IOException("Graph too large for a graph file");
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (int) bodyLength).order(ByteOrder.LITTLE_ENDIAN);
+        int position = HEADER_SIZE;
+        for (int id = 0; id < n; id++) {
+            for (int i = 0; i < dim; i++) buffer.putDouble(position + 8 * (id * dim + i), graph.getFeature(id, i));
+        }
+        position = next(position, 8L * n * dim);
+        for (int id = 0; id < n; id++) {
+            if (graph.isObstacle(id)) {
+                int word = position + 8 * (id >>> 6);
+                buffer.putLong(word, buffer.getLong(word) | 1L << (id & 63));
+            }
+        }
+        position = next(position, 8L * words(n));
+        for (int id = 0; id < n; id++) buffer.putInt(position + 4 * id, graph.getX(id));
+        position = next(position, 4L * n);
+        for (int id = 0; id < n; id++) buffer.putInt(position + 4 * id, graph.getY(id));
+        position = next(position, 4L * n);
+
+        int offsetsAt = position, targetsAt = next(position, 4L * (n + 1));
+        int weightsAt = next(targetsAt, 4L * edgeCount);
+        for (int id = 0, edge = 0; id < n; id++) {
+            buffer.putInt(offsetsAt + 4 * id, edge);
+            for (int i = 0; i < graph.getDegree(id); i++, edge++) {
+                buffer.putInt(targetsAt + 4 * edge, graph.getNeighbor(id, i));
+                buffer.putFloat(weightsAt + 4 * edge, (float) graph.getWeight(id, i));
+            }
+        }
+        buffer.putInt(offsetsAt + 4 * n, edgeCount);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, (int) bodyLength);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        buffer.putInt(8, HEADER_SIZE);
+        int[] header = { graph.getImageWidth(), graph.getImageHeight(), graph.getRegionSize(),
+                         graph.getColumns(), graph.getRows(), n, dim, edgeCount };
+        for (int i = 0; i < header.length; i++) buffer.putInt(12 + 4 * i, header[i]);
+        buffer.putInt(44, (int) crc.getValue());
+        buffer.putLong(48, bodyLength);
+
+        // A temp file of its own, so writers racing on the same graph file never
+        // share one; the last complete file to be moved in wins
+        File directory = file.getAbsoluteFile().getParentFile();
+        Path temp = Files.createTempFile(directory.toPath(), file.getName() + "-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                buffer.rewind();
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(false);
+            }
+            try {
+                Files.move(temp, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes an image graph as its current features and obstacle flags on the
+     * standard 4-neighbour grid, the same layout as ImageGraph.buildCompactGraph.
+     */
+    public static void write(ImageGraph graph, File file) throws IOException {
+        int size = graph.getRegionSize();
+        int width = graph.getImage().getWidth(), height = graph.getImage().getHeight();
+        int columns = (width + size - 1) / size, rows = (height + size - 1) / size;
+        double[] features = new double[columns * rows * 3];
+        BitSet obstacles = new BitSet(columns * rows);
+        for (int id = 0; id < columns * rows; id++) {
+            int x = (id % columns) * size, y = (id / columns) * size;
+            Vertex v = graph.getVertex(x + "," + y);
+            if (v == null) throw new IllegalArgumentException("Graph is missing region " + x + "," + y);
+            if (v.getFeatures() != null) System.arraycopy(v.getFeatures(), 0, features, id * 3, 3);
+            obstacles.set(id, v.isObstacle());
+        }
+        write(CompactGraph.ofGrid(width, height, size, 3, features, obstacles), file);
+    }
+
+    private static long bodyLength(int vertexCount, int featureDimension, int edgeCount) {
+        long length = next(0, 8L * vertexCount * featureDimension);
+        length = next(length, 8L * words(vertexCount));
+        length = next(length, 4L * vertexCount);
+        length = next(length, 4L * vertexCount);
+        length = next(length, 4L * (vertexCount + 1));
+        length = next(length, 4L * edgeCount);
+        return next(length, 4L * edgeCount);
+    }
+
+    /**
+     * Start of the section after one of the given length, 8-byte aligned.
+     */
+    private static int next(long position, long length) {
+        return (int) ((position + length + 7) & ~7L);
+    }
+
+    private static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    // --- Accessors ---
+    @Override public int getVertexCount() { return vertexCount; }
+    @Override public int getX(int id) { return xs.get(id); }
+    @Override public int getY(int id) { return ys.get(id); }
+    @Override public boolean isObstacle(int id) { return (obstacles.get(id >>> 6) & 1L << (id & 63)) != 0; }
+    @Override public int getFeatureDimension() { return featureDimension; }
+    @Override public double getFeature(int id, int index) { return features.get(id * featureDimension + index); }
+    @Override public int getRegionSize() { return regionSize; }
+    @Override public int getColumns() { return columns; }
+    @Override public int getRows() { return rows; }
+    @Override public int getImageWidth() { return imageWidth; }
+    @Override public int getImageHeight() { return imageHeight; }
+    public int getEdgeCount() { return targets.capacity(); }
+    public File getFile() { return file; }
+
+    // --- Adjacency ---
+    @Override public int getDegree(int id) { return offsets.get(id + 1) - offsets.get(id); }
+    @Override public int getNeighbor(int id, int index) { return targets.get(offsets.get(id) + index); }
+    @Override public double getWeight(int id, int index) { return weights.get(offsets.get(id) + index); }
+}
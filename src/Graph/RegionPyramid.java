@@ -0,0 +1,109 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import java.util.BitSet;
+
+/**
+ * Multi-resolution stack of region grids (e.g. 5/10/20/40-pixel regions).
+ * Level 0 is built from the image; every coarser level merges 2x2 blocks of
+ * the level below, so no level ever rereads pixels.
+ *
+ * <p>A coarse region is an obstacle only when all of its children are, so a
+ * passage that exists at the fine level is never hidden at a coarse one. Its
+ * features are the pixel-weighted mean of its passable children (of all
+ * children if none is passable), since routes only ever cross those; this
+ * keeps coarse edge weights close to the cost of the fine route beneath them.
+ */
+public class RegionPyramid {
+    private final ImplicitGridGraph[] levels;
+
+    /**
+     * Builds a pyramid on top of an existing finest-level grid.
+     * @param base Finest region grid (level 0)
+     * @param levelCount Number of levels including the base
+     */
+    public RegionPyramid(ImplicitGridGraph base, int levelCount) {
+        if (levelCount < 1) throw new IllegalArgumentException("Pyramid needs at least one level");
+        levels = new ImplicitGridGraph[levelCount];
+        levels[0] = base;
+        for (int level = 1; level < levelCount; level++) {
+            levels[level] = coarsen(levels[level - 1]);
+        }
+    }
+
+    /**
+     * Builds a pyramid from an image's integral tables.
+     * @param integral Summed-area tables of the image
+     * @param baseRegionSize Region size at level 0; doubles at every level
+     * @param levelCount Number of levels including the base
+     */
+    public static RegionPyramid build(IntegralImage integral, int baseRegionSize, int levelCount) {
+        return new RegionPyramid(ImageGraph.buildImplicitGraph(integral, baseRegionSize), levelCount);
+    }
+
+    /**
+     * Merges 2x2 blocks of regions into one region of twice the size.
+     */
+    private static ImplicitGridGraph coarsen(ImplicitGridGraph fine) {
+        int size = fine.getRegionSize() * 2;
+        int width = fine.getImageWidth(), height = fine.getImageHeight();
+        int columns = (width + size - 1) / size, rows = (height + size - 1) / size;
+        int dim = fine.getFeatureDimension();
+        double[] features = new double[columns * rows * dim];
+        double[] pixels = new double[columns * rows];
+        BitSet passable = new BitSet(columns * rows);
+
+        for (int child = 0; child < fine.getVertexCount(); child++) {
+            if (!fine.isObstacle(child)) passable.set(parentIndex(fine, child, size, columns));
+        }
+        for (int child = 0; child < fine.getVertexCount(); child++) {
+            int parent = parentIndex(fine, child, size, columns);
+            if (fine.isObstacle(child) && passable.get(parent)) continue;
+            double count = pixelCount(fine, child);
+            for (int i = 0; i < dim; i++) {
+                features[parent * dim + i] += fine.getFeature(child, i) * count;
+            }
+            pixels[parent] += count;
+        }
+
+        for (int id = 0; id < pixels.length; id++) {
+            for (int i = 0; i < dim; i++) features[id * dim + i] /= pixels[id];
+        }
+        BitSet obstacles = (BitSet) passable.clone();
+        obstacles.flip(0, columns * rows);
+        return new ImplicitGridGraph(width, height, size, dim, features, obstacles);
+    }
+
+    private static int parentIndex(IndexedGraph fine, int child, int size, int columns) {
+        return (fine.getY(child) / size) * columns + fine.getX(child) / size;
+    }
+
+    /**
+     * Number of image pixels a region covers (edge regions are clipped).
+     */
+    private static int pixelCount(IndexedGraph graph, int id) {
+        int size = graph.getRegionSize();
+        return (Math.min(graph.getX(id) + size, graph.getImageWidth()) - graph.getX(id))
+             * (Math.min(graph.getY(id) + size, graph.getImageHeight()) - graph.getY(id));
+    }
+
+    /**
+     * Maps a region to the region containing it one level up.
+     * @param level Level of the region (must be below the top)
+     * @param id Region id at that level
+     * @return Region id at level + 1
+     */
+    public int parentOf(int level, int id) {
+        ImplicitGridGraph coarse = levels[level + 1];
+        return coarse.vertexAt(
+            levels[level].getX(id) / coarse.getRegionSize() * coarse.getRegionSize(),
+            levels[level].getY(id) / coarse.getRegionSize() * coarse.getRegionSize());
+    }
+
+    // --- Accessors ---
+    public int getLevelCount() { return levels.length; }
+    public ImplicitGridGraph getLevel(int level) { return levels[level]; }
+}
@@ -0,0 +1,173 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import java.util.List;
+
+/**
+ * CSR copy of an ImageGraph's regions as they are now: features, obstacle
+ * flags and the links of the Vertex objects, weights kept as doubles.
+ * Unlike ImageGraph.buildCompactGraph it reflects obstacle flips and edge
+ * edits made since the graph was built, so a search on it finds the same
+ * distances as the Pathfinder searches on the ImageGraph.
+ *
+ * <p>An ImageGraph region holds one edge per passable endpoint of a link, and
+ * none between two obstacles. The snapshot follows the IndexedGraph layout
+ * instead: one slot per neighbour, 4-neighbours first in the order right,
+ * left, down, up. A link between two obstacles gets a slot with the grid
+ * weight (searches never take it). So while the graph is as built, with no
+ * obstacle flips or edge edits, the snapshot has exactly the slots of its
+ * CompactGraph, and degrees counted the IndexedGraph way equal those of the
+ * ImageGraph. A link whose edges were removed gets no slot, and edges added
+ * to other regions follow the 4-neighbours.
+ */
+final class RegionSnapshot implements IndexedGraph {
+    private final int imageWidth, imageHeight;
+    private final int regionSize;
+    private final int columns, rows;
+    private final double[] features;        // Row-major, 3 values per region
+    private final boolean[] obstacles;
+    private final int[] offsets;            // vertexCount + 1 entries
+    private final int[] targets;
+    private final double[] weights;
+
+    RegionSnapshot(ImageGraph graph) {
+        this.imageWidth = graph.getImage().getWidth();
+        this.imageHeight = graph.getImage().getHeight();
+        this.regionSize = graph.getRegionSize();
+        this.columns = (imageWidth + regionSize - 1) / regionSize;
+        this.rows = (imageHeight + regionSize - 1) / regionSize;
+
+        int n = columns * rows;
+        Vertex[] regions = new Vertex[n];
+        this.features = new double[n * 3];
+        this.obstacles = new boolean[n];
+        for (int id = 0; id < n; id++) {
+            Vertex v = graph.getVertex(xOf(id) + "," + yOf(id));
+            if (v == null) throw new IllegalArgumentException("Graph is missing region " + xOf(id) + "," + yOf(id));
+            regions[id] = v;
+            if (v.getFeatures() != null) System.arraycopy(v.getFeatures(), 0, features, id * 3, 3);
+            obstacles[id] = v.isObstacle();
+        }
+
+        // Merge each region's edges into one slot per neighbour, keeping the lightest
+        this.offsets = new int[n + 1];
+        int[][] slotTargets = new int[n][];
+        double[][] slotWeights = new double[n][];
+        for (int id = 0; id < n; id++) {
+            List<Edge> edges = regions[id].getEdges();
+            int[] ids = new int[edges.size() + 4];
+            double[] costs = new double[ids.length];
+            int count = 0;
+            int col = id % columns, row = id / columns;
+            // Same neighbour order as CompactGraph: right, left, down, up
+            if (col < columns - 1) count = gridSlot(regions, id, id + 1, ids, costs, count);
+            if (col > 0) count = gridSlot(regions, id, id - 1, ids, costs, count);
+            if (row < rows - 1) count = gridSlot(regions, id, id + columns, ids, costs, count);
+            if (row > 0) count = gridSlot(regions, id, id - columns, ids, costs, count);
+            for (Edge edge : edges) {
+                int target = idOf(regions, edge.getDestination());
+                if (indexOf(ids, count, target) == -1) {
+                    ids[count] = target;
+                    costs[count++] = lightest(edges, edge.getDestination());
+                }
+            }
+            slotTargets[id] = ids;
+            slotWeights[id] = costs;
+            offsets[id + 1] = offsets[id] + count;
+        }
+
+        this.targets = new int[offsets[n]];
+        this.weights = new double[offsets[n]];
+        for (int id = 0; id < n; id++) {
+            int count = offsets[id + 1] - offsets[id];
+            System.arraycopy(slotTargets[id], 0, targets, offsets[id], count);
+            System.arraycopy(slotWeights[id], 0, weights, offsets[id], count);
+        }
+    }
+
+    /**
+     * Adds the slot to a 4-neighbour if the region has edges to it, or if both
+     * are obstacles and so were never wired.
+     */
+    private static int gridSlot(Vertex[] regions, int id, int neighbor, int[] ids, double[] costs, int count) {
+        Vertex v = regions[id], other = regions[neighbor];
+        double weight = lightest(v.getEdges(), other);
+        if (weight == Double.POSITIVE_INFINITY) {
+            if (!v.isObstacle() || !other.isObstacle()) return count;   // Link removed
+            weight = v.distanceTo(other) * (1 + v.featureDistance(other));
+        }
+        ids[count] = neighbor;
+        costs[count] = weight;
+        return count + 1;
+    }
+
+    private static double lightest(List<Edge> edges, Vertex destination) {
+        double weight = Double.POSITIVE_INFINITY;
+        for (Edge edge : edges) {
+            if (edge.getDestination() == destination) weight = Math.min(weight, edge.getWeight());
+        }
+        return weight;
+    }
+
+    private static int indexOf(int[] ids, int count, int id) {
+        for (int i = 0; i < count; i++) if (ids[i] == id) return i;
+        return -1;
+    }
+
+    private int idOf(Vertex[] regions, Vertex vertex) {
+        int id = vertexAt(vertex.getX(), vertex.getY());
+        if (id == -1 || regions[id] != vertex) {
+            throw new IllegalArgumentException("Edge to " + vertex.getId() + " leaves the region grid");
+        }
+        return id;
+    }
+
+    /**
+     * Checks the snapshot against the live graph: every region has one slot
+     * per distinct edge destination, with the lightest of those edges' weights,
+     * plus only grid slots between two obstacles.
+     */
+    boolean matches(ImageGraph graph) {
+        for (int id = 0; id < getVertexCount(); id++) {
+            Vertex v = graph.getVertex(xOf(id) + "," + yOf(id));
+            if (v == null || v.isObstacle() != obstacles[id]) return false;
+            int linked = 0;
+            for (int i = 0; i < getDegree(id); i++) {
+                Vertex other = graph.getVertex(getX(getNeighbor(id, i)) + "," + getY(getNeighbor(id, i)));
+                double weight = lightest(v.getEdges(), other);
+                if (weight != Double.POSITIVE_INFINITY) {
+                    if (weight != getWeight(id, i)) return false;
+                    linked++;
+                } else if (!v.isObstacle() || !other.isObstacle()) {
+                    return false;
+                }
+            }
+            if (linked != v.getEdges().stream().map(Edge::getDestination).distinct().count()) return false;
+        }
+        return true;
+    }
+
+    private int xOf(int id) { return (id % columns) * regionSize; }
+    private int yOf(int id) { return (id / columns) * regionSize; }
+
+    // --- Accessors ---
+    @Override public int getVertexCount() { return obstacles.length; }
+    @Override public int getX(int id) { return xOf(id); }
+    @Override public int getY(int id) { return yOf(id); }
+    @Override public boolean isObstacle(int id) { return obstacles[id]; }
+    @Override public int getFeatureDimension() { return 3; }
+    @Override public double getFeature(int id, int index) { return features[id * 3 + index]; }
+    @Override public int getRegionSize() { return regionSize; }
+    @Override public int getColumns() { return columns; }
+    @Override public int getRows() { return rows; }
+    @Override public int getImageWidth() { return imageWidth; }
+    @Override public int getImageHeight() { return imageHeight; }
+
+    // --- Adjacency (CSR) ---
+    @Override public int getDegree(int id) { return offsets[id + 1] - offsets[id]; }
+    @Override public int getNeighbor(int id, int index) { return targets[offsets[id] + index]; }
+    @Override public double getWeight(int id, int index) { return weights[offsets[id] + index]; }
+}
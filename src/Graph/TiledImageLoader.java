@@ -0,0 +1,296 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+/**
+ * Streams region features out of images too large to decode in one piece,
+ * keeping at most one band or tile of pixels in memory whatever the image size.
+ *
+ * <p>Most formats (PNG, JPEG, GIF) can only be decoded front to back: asking
+ * for a source region makes the reader decode from the first scanline again,
+ * and PNG decodes the whole image each time. Those are read in a single pass
+ * into a destination whose pixel storage holds just one band of region rows;
+ * each band is turned into regions as soon as the decoder moves past it.
+ * Readers that write rows out of order (interlaced PNG) or that need the
+ * destination's storage arrays, and natively tiled formats, are read tile by
+ * tile through source regions instead. For row-ordered formats that costs up
+ * to one decode per tile, so tiles are made as large as the budget allows.
+ *
+ * <p>Bands and tiles are aligned to the region grid, so every region is
+ * computed from a single piece and its features match those of an in-memory
+ * ImageGraph.
+ */
+public class TiledImageLoader {
+    /** Default upper bound on the pixels decoded per tile (64 MB as ARGB) */
+    public static final int DEFAULT_TILE_PIXELS = 16 * 1024 * 1024;
+
+    /**
+     * Receives every region once. Single-pass reads deliver them in id order
+     * once the decode has succeeded; tiled reads deliver them tile by tile.
+     */
+    public interface RegionSink {
+        /**
+         * @param id Row-major region id
+         * @param features Mean RGB of the region
+         * @param obstacle Whether the region is impassable
+         */
+        void accept(int id, double[] features, boolean obstacle);
+    }
+
+    /**
+     * Reads the image size from its header without decoding pixels.
+     * @throws IOException if no reader understands the file
+     */
+    public static Dimension dimensions(File file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            ImageReader reader = readerFor(input, file);
+            try {
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Builds an implicit grid graph from the file; only the region features and
+     * obstacle bits are kept, never the pixels.
+     * @param file Image file
+     * @param regionSize Region edge length in pixels
+     * @return Edge-less grid graph with one id per region in row-major order
+     */
+    public static ImplicitGridGraph load(File file, int regionSize) throws IOException {
+        Dimension size = dimensions(file);
+        int columns = (size.width + regionSize - 1) / regionSize;
+        int rows = (size.height + regionSize - 1) / regionSize;
+        double[] features = new double[columns * rows * 3];
+        BitSet obstacles = new BitSet(columns * rows);
+
+        stream(file, regionSize, DEFAULT_TILE_PIXELS, (id, regionFeatures, obstacle) -> {
+            System.arraycopy(regionFeatures, 0, features, id * 3, 3);
+            obstacles.set(id, obstacle);
+        });
+        return new ImplicitGridGraph(size.width, size.height, regionSize, 3, features, obstacles);
+    }
+
+    /**
+     * Decodes the file and hands every region to the sink: in a single pass
+     * when the reader allows it, otherwise tile by tile.
+     * @param file Image file
+     * @param regionSize Region edge length in pixels
+     * @param maxTilePixels Upper bound on pixels decoded at once
+     * @param sink Receives every region exactly once
+     */
+    public static void stream(File file, int regionSize, int maxTilePixels, RegionSink sink) throws IOException {
+        if (!streamBands(file, regionSize, maxTilePixels, sink)) streamTiles(file, regionSize, maxTilePixels, sink);
+    }
+
+    /**
+     * Decodes the whole image once into a band-sized destination.
+     * @return false, having passed nothing to the sink, if this reader cannot
+     *         be read that way
+     */
+    private static boolean streamBands(File file, int regionSize, int maxTilePixels, RegionSink sink)
+            throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            ImageReader reader = readerFor(input, file);
+            try {
+                int width = reader.getWidth(0), height = reader.getHeight(0);
+                if (reader.isImageTiled(0) || (long) width * regionSize > maxTilePixels) return false;
+                Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+                if (!types.hasNext()) return false;
+
+                // The same image type the reader would create itself, so getRGB sees the same pixels
+                ImageTypeSpecifier type = types.next();
+                SampleModel model = type.getSampleModel(width, height);
+                int stride = scanlineStride(model);
+                int dataType = model.getDataType();
+                if (stride < 0 || (long) stride * height > Integer.MAX_VALUE
+                    || (dataType != DataBuffer.TYPE_BYTE && dataType != DataBuffer.TYPE_USHORT
+                        && dataType != DataBuffer.TYPE_INT)) {
+                    return false;
+                }
+
+                int columns = (width + regionSize - 1) / regionSize, rows = (height + regionSize - 1) / regionSize;
+                double[] features = new double[columns * rows * 3];
+                BitSet obstacles = new BitSet(columns * rows);
+                ColorModel colors = type.getColorModel();
+                BandBuffer buffer = new BandBuffer(model, colors, width, height, stride, regionSize,
+                    (tile, bounds) -> emitTile(tile, bounds, regionSize, columns, (id, f, obstacle) -> {
+                        System.arraycopy(f, 0, features, id * 3, 3);
+                        obstacles.set(id, obstacle);
+                    }));
+                BufferedImage destination = new BufferedImage(colors,
+                    Raster.createWritableRaster(model, buffer, null), colors.isAlphaPremultiplied(), null);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setDestination(destination);
+                try {
+                    reader.read(0, param);
+                    if (!buffer.finish()) return false;
+                } catch (RuntimeException e) {
+                    // Rows out of order, or a reader that needs the storage arrays: read by tiles
+                    return false;
+                }
+                for (int id = 0; id < columns * rows; id++) {
+                    sink.accept(id, Arrays.copyOfRange(features, id * 3, id * 3 + 3), obstacles.get(id));
+                }
+                return true;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decodes the file tile by tile through source regions.
+     * Tiles span whole region rows and are as wide as the pixel budget allows.
+     */
+    private static void streamTiles(File file, int regionSize, int maxTilePixels, RegionSink sink) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            ImageReader reader = readerFor(input, file);
+            try {
+                int width = reader.getWidth(0), height = reader.getHeight(0);
+                int columns = (width + regionSize - 1) / regionSize;
+
+                // Tile extents in whole regions: full-width strips if they fit, narrower otherwise
+                int regionPixels = regionSize * regionSize;
+                int tileColumns = Math.max(1, Math.min(columns, maxTilePixels / regionPixels));
+                int tileRows = Math.max(1, maxTilePixels / (regionPixels * tileColumns));
+                int tileWidth = tileColumns * regionSize, tileHeight = tileRows * regionSize;
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                for (int tileY = 0; tileY < height; tileY += tileHeight) {
+                    for (int tileX = 0; tileX < width; tileX += tileWidth) {
+                        Rectangle bounds = new Rectangle(tileX, tileY,
+                            Math.min(tileWidth, width - tileX), Math.min(tileHeight, height - tileY));
+                        param.setSourceRegion(bounds);
+                        emitTile(reader.read(0, param), bounds, regionSize, columns, sink);
+                    }
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Computes the regions of one decoded tile and passes them on.
+     */
+    private static void emitTile(BufferedImage tile, Rectangle bounds, int regionSize, int columns, RegionSink sink) {
+        IntegralImage integral = IntegralImage.of(tile);
+        for (int y = 0; y < bounds.height; y += regionSize) {
+            for (int x = 0; x < bounds.width; x += regionSize) {
+                int id = ((bounds.y + y) / regionSize) * columns + (bounds.x + x) / regionSize;
+                sink.accept(id, integral.meanColor(x, y, regionSize),
+                            ImageGraph.isObstacleRegion(integral, regionSize, x, y));
+            }
+        }
+    }
+
+    private static int scanlineStride(SampleModel model) {
+        if (model instanceof ComponentSampleModel) return ((ComponentSampleModel) model).getScanlineStride();
+        if (model instanceof SinglePixelPackedSampleModel) return ((SinglePixelPackedSampleModel) model).getScanlineStride();
+        if (model instanceof MultiPixelPackedSampleModel) return ((MultiPixelPackedSampleModel) model).getScanlineStride();
+        return -1;
+    }
+
+    /**
+     * Pixel storage for a whole-image destination that keeps only the band of
+     * region rows the decoder is writing. When the decoder moves on to the
+     * next band, the finished one is copied into a small image and passed on.
+     * A write behind the current band or one that skips a band means the
+     * reader does not work front to back, and aborts the read.
+     */
+    private static final class BandBuffer extends DataBuffer {
+        private final SampleModel model;
+        private final ColorModel colors;
+        private final int width, height, stride, bandRows;
+        private final BiConsumer<BufferedImage, Rectangle> done;
+        private final int[][] band;         // Elements of the current band, per bank
+        private int current;                // Index of the band being written
+
+        BandBuffer(SampleModel model, ColorModel colors, int width, int height, int stride, int bandRows,
+                   BiConsumer<BufferedImage, Rectangle> done) {
+            super(model.getDataType(), stride * height, model instanceof BandedSampleModel ? model.getNumBands() : 1);
+            this.model = model;
+            this.colors = colors;
+            this.width = width;
+            this.height = height;
+            this.stride = stride;
+            this.bandRows = bandRows;
+            this.done = done;
+            this.band = new int[getNumBanks()][stride * bandRows];
+        }
+
+        @Override
+        public int getElem(int bank, int i) {
+            return band[bank][locate(i)];
+        }
+
+        @Override
+        public void setElem(int bank, int i, int value) {
+            band[bank][locate(i)] = value;
+        }
+
+        private int locate(int i) {
+            int index = i / stride / bandRows;
+            if (index != current) {
+                if (index != current + 1) throw new IllegalStateException("Rows written out of order");
+                emit();
+                current = index;
+                for (int[] bank : band) Arrays.fill(bank, 0);
+            }
+            return i - current * bandRows * stride;
+        }
+
+        /**
+         * Emits the last band once the read has returned.
+         * @return false if the decoder never reached it
+         */
+        boolean finish() {
+            if (current != (height - 1) / bandRows) return false;
+            emit();
+            return true;
+        }
+
+        private void emit() {
+            int y = current * bandRows, rows = Math.min(bandRows, height - y);
+            SampleModel bandModel = model.createCompatibleSampleModel(width, rows);
+            DataBuffer data = bandModel.createDataBuffer();
+            if (scanlineStride(bandModel) != stride) throw new IllegalStateException("Band layout differs");
+            for (int bank = 0; bank < getNumBanks(); bank++) {
+                for (int e = 0; e < Math.min(data.getSize(), stride * rows); e++) data.setElem(bank, e, band[bank][e]);
+            }
+            BufferedImage tile = new BufferedImage(colors, Raster.createWritableRaster(bandModel, data, null),
+                                                   colors.isAlphaPremultiplied(), null);
+            done.accept(tile, new Rectangle(0, y, width, rows));
+        }
+    }
+
+    private static ImageReader readerFor(ImageInputStream input, File file) throws IOException {
+        if (input == null) throw new IOException("Cannot open " + file);
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) throw new IOException("No image reader for " + file.getName());
+        ImageReader reader = readers.next();
+        reader.setInput(input, false, true);
+        return reader;
+    }
+}
@@ -13,6 +13,7 @@ public class Vertex {
     private final List<Edge> edges;    // Outgoing connections
     private double[] features;        // Visual characteristics (color, texture)
     private boolean isObstacle;       // For pathfinding (true = impassable)
+    Graph owner;                      // Graph this vertex was added to, if any
 
     public Vertex(String id, int x, int y) {
         this.id = id;
@@ -26,13 +27,16 @@ public class Vertex {
      */
     public void addEdge(Vertex destination, double weight) {
         edges.add(new Edge(this, destination, weight));
+        if (owner != null) owner.degreeChanged(this, edges.size() - 1, edges.size());
     }
 
     /**
      * Removes all connections to a specific vertex.
      */
     public void removeEdge(Vertex destination) {
+        int before = edges.size();
         edges.removeIf(e -> e.getDestination().equals(destination));
+        if (owner != null) owner.degreeChanged(this, before, edges.size());
     }
 
     // --- Key Calculations ---
@@ -49,23 +53,23 @@ public class Vertex {
      */
     public double featureDistance(Vertex other) {
         if (features == null || other.features == null) return Double.POSITIVE_INFINITY;
-        
-        double sum = 0;
-        for (int i = 0; i < features.length; i++) {
-            sum += Math.pow(features[i] - other.features[i], 2);
-        }
-        return Math.sqrt(sum);
+        return DistanceKernels.distance(features, other.features);
     }
 
     // --- Getters/Setters ---
     public String getId() { return id; }
+    public Graph getGraph() { return owner; }
     public int getX() { return x; }
     public int getY() { return y; }
     public List<Edge> getEdges() { return edges; }
     public double[] getFeatures() { return features; }
     public void setFeatures(double[] features) { this.features = features; }
     public boolean isObstacle() { return isObstacle; }
-    public void setObstacle(boolean isObstacle) { this.isObstacle = isObstacle; }
+    public void setObstacle(boolean isObstacle) {
+        if (this.isObstacle == isObstacle) return;
+        this.isObstacle = isObstacle;
+        if (owner != null) owner.obstacleChanged(this);
+    }
 
     @Override
     public boolean equals(Object obj) {
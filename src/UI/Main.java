@@ -6,7 +6,15 @@ package UI;
 
 import Graph.Edge;
 import Graph.ImageGraph;
+import Graph.ImplicitGridGraph;
+import Graph.IndexedGraph;
+import Graph.TiledImageLoader;
 import Graph.Vertex;
+import Algorithms.ExploredTrace;
+import Algorithms.FeatureIndex;
+import Algorithms.Landmarks;
+import Algorithms.PathCache;
+import Algorithms.SearchListener;
 import Algorithms.Pathfinder;
 import Algorithms.SimilarityDetector;
 import javafx.application.Application;
@@ -20,6 +28,7 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javax.imageio.ImageIO;
 
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
@@ -54,6 +63,11 @@ public class Main extends Application {
     
     // Current graph data
     private ImageGraph graph;
+    private ImplicitGridGraph streamedGraph; // Set instead of graph for oversized images
+    private final PathCache pathCache = new PathCache(64, 64L * 1024 * 1024);
+    
+    /** Images above this many pixels are streamed tile by tile instead of decoded */
+    private static final long LARGE_IMAGE_PIXELS = 50_000_000L;
 
     @Override
     public void start(Stage primaryStage) {
@@ -150,7 +164,10 @@ public class Main extends Application {
 
         // Algorithm selection
         VBox algorithmBox = new VBox(5, new Label("Algorithm:"), algorithmCombo);
-        algorithmCombo.getItems().addAll("Dijkstra's Algorithm", "A* Algorithm");
+        for (Pathfinder.Algorithm algorithm : Pathfinder.Algorithm.values()) {
+            algorithmCombo.getItems().add(algorithm.getLabel());
+        }
+        algorithmCombo.getItems().add("A* with Landmarks");
         algorithmCombo.setValue("A* Algorithm");
 
         // Region size control
@@ -239,6 +256,14 @@ public class Main extends Application {
         findPathBtn.setOnAction(e -> findPath());
         compareBtn.setOnAction(e -> compareImages());
         
+        // Rebuild from the cached integral tables once the slider settles
+        regionSizeSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
+            if (!regionSizeSlider.isValueChanging()) rebuildGraph();
+        });
+        regionSizeSlider.valueChangingProperty().addListener((obs, wasChanging, changing) -> {
+            if (!changing) rebuildGraph();
+        });
+        
         pathfindingOutput.setEditable(false);
     }
 
@@ -255,6 +280,13 @@ public class Main extends Application {
         File file = fileChooser.showOpenDialog(null);
         if (file != null) {
             try {
+                Dimension size = TiledImageLoader.dimensions(file);
+                if ((long)size.width * size.height > LARGE_IMAGE_PIXELS) {
+                    loadLargeImage(file, size);
+                    return;
+                }
+                
+                streamedGraph = null;
                 Image image = new Image(file.toURI().toString());
                 BufferedImage bufferedImage = ImageIO.read(file);
                 
@@ -272,6 +304,37 @@ public class Main extends Application {
         }
     }
 
+    /**
+     * Builds a graph for an image too large to decode in memory.
+     * Regions are streamed tile by tile; no previews are shown.
+     * @param file The image file
+     * @param size The image dimensions
+     */
+    private void loadLargeImage(File file, Dimension size) throws IOException {
+        deleteImage();
+        streamedGraph = TiledImageLoader.load(file, (int)regionSizeSlider.getValue());
+        
+        appendOutput(String.format(
+            "Streamed %dx%d image into a graph with %d regions (preview disabled for large images)",
+            size.width, size.height, streamedGraph.getVertexCount()
+        ));
+    }
+
+    /**
+     * Rebuilds the current graph at the slider's region size.
+     * Reuses the loaded image's integral tables, so no pixels are reread.
+     */
+    private void rebuildGraph() {
+        int regionSize = (int)regionSizeSlider.getValue();
+        if (graph == null || graph.getRegionSize() == regionSize) return;
+        
+        graph = new ImageGraph(graph.getImage(), graph.getIntegralImage(), regionSize);
+        graphImageView.setImage(visualizeGraph(graph));
+        
+        appendOutput("Rebuilt graph at region size " + regionSize + " with " + 
+                   graph.getVertices().size() + " vertices");
+    }
+
     /**
      * Clears all loaded images and results.
      */
@@ -279,6 +342,7 @@ public class Main extends Application {
         originalImageView.setImage(null);
         graphImageView.setImage(null);
         graph = null;
+        streamedGraph = null;
         resultView.setImage(null);
         pathfindingOutput.clear();
     }
@@ -322,6 +386,10 @@ public class Main extends Application {
      * Finds and displays the shortest path in the graph.
      */
     private void findPath() {
+        if (streamedGraph != null) {
+            findStreamedPath();
+            return;
+        }
         if (graph == null) {
             showAlert("Please load an image first");
             return;
@@ -336,34 +404,78 @@ public class Main extends Application {
         Vertex start = vertices.get(0);
         Vertex end = vertices.get(vertices.size() - 1);
         
-        Pathfinder.PathResult result = algorithmCombo.getValue().equals("Dijkstra's Algorithm") 
-            ? Pathfinder.dijkstra(start, end)
-            : Pathfinder.aStar(start, end);
+        // Only the UI needs the explored area, so only it pays for tracing it
+        ExploredTrace trace = ExploredTrace.forGraph(graph);
+        Pathfinder.PathResult result = runSelectedAlgorithm(start, end, trace);
         
-        if (result.path.isEmpty()) {
+        if (!graph.mayReach(start, end)) {
+            appendOutput("No path: the selected points lie in separate regions");
+        } else if (result.path.isEmpty()) {
             appendOutput("No path found between the selected points");
         } else {
             appendOutput(String.format(
-                "%s found path with %d steps (cost: %.2f) in %d ms\n" +
-                "Explored %d vertices",
+                "%s found path with %d steps (cost: %.2f) in %.3f ms\n" +
+                "Explored %d vertices (%d relaxations)",
                 algorithmCombo.getValue(),
                 result.path.size(),
                 result.totalCost,
-                result.timeMillis,
-                result.explored.size()
+                result.metrics.getTimeMillis(),
+                result.metrics.getSettled(),
+                result.metrics.getRelaxations()
             ));
             
-            resultView.setImage(visualizePath(graph, result));
+            resultView.setImage(visualizePath(graph, result, trace));
+        }
+    }
+    
+    /**
+     * Finds a path across a streamed graph and reports it as text only.
+     */
+    private void findStreamedPath() {
+        int start = 0;
+        int end = streamedGraph.getVertexCount() - 1;
+        
+        Pathfinder.PathResult result = runSelectedAlgorithm(streamedGraph, start, end);
+        
+        if (result.path.isEmpty()) {
+            appendOutput("No path found between the selected points");
+        } else {
+            appendOutput(String.format(
+                "%s found path with %d steps (cost: %.2f) in %.3f ms\n" +
+                "Explored %d vertices (%d relaxations)",
+                algorithmCombo.getValue(),
+                result.path.size(),
+                result.totalCost,
+                result.metrics.getTimeMillis(),
+                result.metrics.getSettled(),
+                result.metrics.getRelaxations()
+            ));
         }
     }
     
+    /**
+     * Runs the search picked in the algorithm combo box.
+     */
+    private Pathfinder.PathResult runSelectedAlgorithm(Vertex start, Vertex end, SearchListener listener) {
+        Pathfinder.Algorithm algorithm = Pathfinder.Algorithm.fromLabel(algorithmCombo.getValue());
+        if (algorithm == null) return Pathfinder.aStar(start, end, Landmarks.of(graph), listener);
+        return pathCache.find(graph, start, end, algorithm, listener);
+    }
+    
+    private Pathfinder.PathResult runSelectedAlgorithm(IndexedGraph graph, int start, int end) {
+        Pathfinder.Algorithm algorithm = Pathfinder.Algorithm.fromLabel(algorithmCombo.getValue());
+        if (algorithm == null) return Pathfinder.aStar(graph, start, end, Landmarks.of(graph));
+        return algorithm.run(graph, start, end);
+    }
+    
     /**
      * Draws the pathfinding results on the image.
      * @param graph The source graph
      * @param result The pathfinding results
+     * @param trace Regions the search settled (empty for cached results)
      * @return Image showing the path
      */
-    private WritableImage visualizePath(ImageGraph graph, Pathfinder.PathResult result) {
+    private WritableImage visualizePath(ImageGraph graph, Pathfinder.PathResult result, ExploredTrace trace) {
         BufferedImage original = graph.getImage();
         BufferedImage combined = new BufferedImage(
             original.getWidth(), original.getHeight(), BufferedImage.TYPE_INT_RGB
@@ -374,8 +486,8 @@ public class Main extends Application {
         
         // Draw explored areas
         g2d.setColor(new java.awt.Color(255, 255, 0, 100));
-        for (Vertex v : result.explored) {
-            g2d.fillOval(v.getX() - 3, v.getY() - 3, 7, 7);
+        for (int id = trace.nextSettled(0); id >= 0; id = trace.nextSettled(id + 1)) {
+            g2d.fillOval(trace.getX(id) - 3, trace.getY(id) - 3, 7, 7);
         }
         
         // Draw path
@@ -491,20 +603,13 @@ public class Main extends Application {
         
         if (!vertices1.isEmpty() && !vertices2.isEmpty()) {
             int samples = Math.min(10, Math.min(vertices1.size(), vertices2.size()));
+            FeatureIndex index2 = FeatureIndex.of(graph2);
             
             for (int i = 0; i < samples; i++) {
                 Vertex v1 = vertices1.get(i * vertices1.size() / samples);
                 
-                Vertex mostSimilar = vertices2.get(0);
-                double minDistance = Double.POSITIVE_INFINITY;
-                
-                for (Vertex v2 : vertices2) {
-                    double dist = v1.featureDistance(v2);
-                    if (dist < minDistance) {
-                        minDistance = dist;
-                        mostSimilar = v2;
-                    }
-                }
+                int nearest = index2.nearest(v1.getFeatures());
+                Vertex mostSimilar = nearest == -1 ? vertices2.get(0) : index2.getVertex(nearest);
                 
                 g2d.drawLine(
                     v1.getX(), v1.getY(),
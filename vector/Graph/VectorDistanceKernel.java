@@ -0,0 +1,74 @@
+/**
+ * @author BA MALAZA
+ * @version MiniProject
+ */
+package Graph;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD version of the DistanceKernels batches, on the incubating Vector API.
+ * Each lane holds one point: the kernel loads the same feature of several
+ * consecutive points from a column, subtracts the query's value and adds the
+ * square, dimension by dimension. That is the scalar loop's order of
+ * operations for every point, so results match it bit for bit. Points left
+ * over after the last full vector go to the scalar loop.
+ *
+ * <p>Kept out of {@code src} because it needs
+ * {@code --add-modules jdk.incubator.vector} to compile and run; DistanceKernels
+ * loads it by name when it is present. See the README for the build command.
+ */
+final class VectorDistanceKernel implements DistanceKernels.Kernel {
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    private final DistanceKernels.ScalarKernel tail = new DistanceKernels.ScalarKernel();
+
+    @Override
+    public void squaredDistances(double[] queries, int queryOffset, int dimension, double[] columns, int stride,
+                                 int from, int to, double[] out, int outOffset) {
+        int i = from, bound = from + DOUBLES.loopBound(to - from);
+        for (; i < bound; i += DOUBLES.length()) {
+            DoubleVector sum = DoubleVector.zero(DOUBLES);
+            for (int d = 0; d < dimension; d++) {
+                DoubleVector diff = DoubleVector.fromArray(DOUBLES, columns, d * stride + i).sub(queries[queryOffset + d]);
+                sum = sum.add(diff.mul(diff));
+            }
+            sum.intoArray(out, outOffset + i - from);
+        }
+        tail.squaredDistances(queries, queryOffset, dimension, columns, stride, i, to, out, outOffset + i - from);
+    }
+
+    @Override
+    public void squaredDistances(float[] queries, int queryOffset, int dimension, float[] columns, int stride,
+                                 int from, int to, float[] out, int outOffset) {
+        int i = from, bound = from + FLOATS.loopBound(to - from);
+        for (; i < bound; i += FLOATS.length()) {
+            FloatVector sum = FloatVector.zero(FLOATS);
+            for (int d = 0; d < dimension; d++) {
+                FloatVector diff = FloatVector.fromArray(FLOATS, columns, d * stride + i).sub(queries[queryOffset + d]);
+                sum = sum.add(diff.mul(diff));
+            }
+            sum.intoArray(out, outOffset + i - from);
+        }
+        tail.squaredDistances(queries, queryOffset, dimension, columns, stride, i, to, out, outOffset + i - from);
+    }
+
+    @Override
+    public void pairedSquaredDistances(int dimension, double[] columns, int stride, int shift,
+                                       int from, int to, double[] out, int outOffset) {
+        int i = from, bound = from + DOUBLES.loopBound(to - from);
+        for (; i < bound; i += DOUBLES.length()) {
+            DoubleVector sum = DoubleVector.zero(DOUBLES);
+            for (int d = 0; d < dimension; d++) {
+                DoubleVector diff = DoubleVector.fromArray(DOUBLES, columns, d * stride + i)
+                    .sub(DoubleVector.fromArray(DOUBLES, columns, d * stride + i + shift));
+                sum = sum.add(diff.mul(diff));
+            }
+            sum.intoArray(out, outOffset + i - from);
+        }
+        tail.pairedSquaredDistances(dimension, columns, stride, shift, i, to, out, outOffset + i - from);
+    }
+}